@@ -0,0 +1,101 @@
+import com.sun.management.OperatingSystemMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator for bench-threads.sh. Each of the concurrent workers is
+ * a virtual thread that sends GET requests back to back, cycling through the paths, so the
+ * client costs little CPU next to the server. Run with the JDK source launcher:
+ *
+ *   java LoadClient.java http://localhost:8080 200 30 /api/books/1 /api/books/page?size=20
+ *
+ * Prints one line: concurrency, requests, throughput, p50/p99/max latency, non-2xx
+ * responses, failed requests and the client's own CPU use.
+ */
+public class LoadClient {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("usage: java LoadClient.java <baseUrl> <concurrency> <seconds> <path>...");
+            System.exit(2);
+        }
+        String baseUrl = args[0];
+        int concurrency = Integer.parseInt(args[1]);
+        long durationNanos = Duration.ofSeconds(Long.parseLong(args[2])).toNanos();
+        List<URI> uris = Arrays.stream(args, 3, args.length).map(path -> URI.create(baseUrl + path)).toList();
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        OperatingSystemMXBean os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        AtomicLong non2xx = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+
+        long cpuBefore = os.getProcessCpuTime();
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<java.util.concurrent.Future<long[]>> results = new ArrayList<>();
+            for (int w = 0; w < concurrency; w++) {
+                int offset = w;
+                results.add(workers.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    for (int i = offset; System.nanoTime() < deadline; i++) {
+                        HttpRequest request = HttpRequest.newBuilder(uris.get(i % uris.size()))
+                                .timeout(Duration.ofSeconds(30))
+                                .GET()
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() / 100 != 2) {
+                                non2xx.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                            continue;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+            for (var result : results) {
+                latencies.add(result.get());
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        double clientCpu = (os.getProcessCpuTime() - cpuBefore) / 1e9 / elapsedSeconds * 100;
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("concurrency=%d requests=%d rps=%.0f p50=%.1fms p99=%.1fms max=%.1fms non2xx=%d failed=%d clientCpu=%.0f%%%n",
+                concurrency, all.length, all.length / elapsedSeconds,
+                percentile(all, 0.50), percentile(all, 0.99), all.length == 0 ? 0 : all[all.length - 1] / 1e6,
+                non2xx.get(), failed.get(), clientCpu);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,55 @@
+#!/bin/bash
+# Platform vs virtual thread benchmark for the backend.
+#
+# Starts the packaged jar once per mode on the in-memory H2 database, warms it up, then
+# drives the public catalog endpoints with scripts/LoadClient.java at each concurrency
+# level. The client runs at nice 19, so on a small machine the server gets the CPU first.
+# Server CPU is read from /proc so it can be compared with the client's own CPU (printed
+# by the client): if the server is not the larger share, the numbers measure the client.
+#
+# Usage: scripts/bench-threads.sh [seconds-per-level] [concurrency levels...]
+#   scripts/bench-threads.sh 20 50 200 800
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+SECONDS_PER_LEVEL=${1:-20}
+shift || true
+LEVELS=${*:-"50 200 800"}
+PORT=${BENCH_PORT:-18080}
+JAR=target/library-management-system-0.0.1-SNAPSHOT.jar
+BASE=http://localhost:$PORT
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+PATHS="/api/books/page?size=20 /api/books/search?q=the /api/books/1 /api/books/2 /api/books/3 /api/books/categories"
+
+[ -f "$JAR" ] || ./mvnw -B -q package -DskipTests
+
+server_cpu_ticks() {
+    awk '{print $14 + $15}' "/proc/$1/stat"
+}
+
+for mode in platform virtual; do
+    profile_args=()
+    [ "$mode" = virtual ] && profile_args=(--spring.profiles.active=virtual)
+    $JAVA -jar "$JAR" --server.port="$PORT" --spring.jpa.show-sql=false --logging.level.root=WARN \
+        "${profile_args[@]}" > "/tmp/bench-$mode.log" 2>&1 &
+    server=$!
+    trap 'kill $server 2>/dev/null || true' EXIT
+    until curl -sf -o /dev/null "$BASE/api/books/categories"; do
+        kill -0 $server 2>/dev/null || { echo "server failed to start, see /tmp/bench-$mode.log"; exit 1; }
+        sleep 1
+    done
+
+    nice -n 19 $JAVA scripts/LoadClient.java "$BASE" 50 15 $PATHS > /dev/null
+    for level in $LEVELS; do
+        ticks_before=$(server_cpu_ticks $server)
+        started=$(date +%s%N)
+        line=$(nice -n 19 $JAVA scripts/LoadClient.java "$BASE" "$level" "$SECONDS_PER_LEVEL" $PATHS)
+        elapsed_ms=$(( ($(date +%s%N) - started) / 1000000 ))
+        ticks_after=$(server_cpu_ticks $server)
+        server_cpu=$(( (ticks_after - ticks_before) * 100000 / $(getconf CLK_TCK) / elapsed_ms ))
+        echo "mode=$mode $line serverCpu=${server_cpu}%"
+    done
+
+    kill $server
+    wait $server 2>/dev/null || true
+done
@@ -0,0 +1,42 @@
+package com.library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${library.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${library.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Outbound HTTP (Open Library cover lookups) on the JDK HttpClient, which blocks
+     * without pinning when called from a virtual thread. In virtual-thread mode its own
+     * async work also runs on virtual threads.
+     */
+    @Bean
+    public RestTemplate restTemplate() {
+        HttpClient.Builder client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (virtualThreads) {
+            client.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client.build());
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return new RestTemplate(factory);
+    }
+}
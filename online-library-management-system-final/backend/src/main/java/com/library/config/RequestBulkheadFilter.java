@@ -0,0 +1,72 @@
+package com.library.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of requests in flight when Tomcat runs on virtual threads. With a
+ * platform pool the thread count bounded concurrency; virtual threads are unbounded,
+ * so without this a burst would pile thousands of callers onto the small JDBC pool
+ * and fail them all on connection timeout. Requests beyond the cap wait briefly and
+ * are then shed with 503.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class RequestBulkheadFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestBulkheadFilter.class);
+
+    private final Semaphore permits;
+    private final long admissionTimeoutMs;
+
+    public RequestBulkheadFilter(@Value("${library.virtual.max-concurrent-requests:200}") int maxConcurrentRequests,
+                                 @Value("${library.virtual.admission-timeout-ms:2000}") long admissionTimeoutMs,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.admissionTimeoutMs = admissionTimeoutMs;
+        logger.info("Virtual-thread mode: at most {} concurrent requests sharing {} database connections",
+                maxConcurrentRequests, poolSize);
+        if (maxConcurrentRequests < poolSize) {
+            logger.warn("library.virtual.max-concurrent-requests ({}) is below the connection pool size ({}), "
+                    + "some connections will never be used", maxConcurrentRequests, poolSize);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean admitted;
+        try {
+            admitted = permits.tryAcquire(admissionTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server busy, please retry");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
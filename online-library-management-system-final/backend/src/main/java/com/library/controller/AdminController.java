@@ -1,19 +1,25 @@
 package com.library.controller;
 
 import com.library.dto.AdminReportResponse;
-import com.library.entity.BorrowRecord;
-import com.library.repository.BookRepository;
-import com.library.repository.BorrowRecordRepository;
-import com.library.repository.UserRepository;
+import com.library.dto.BookBorrowCount;
+import com.library.dto.CirculationBucket;
+import com.library.service.ActiveLoanCounter;
+import com.library.service.BookLockManager;
+import com.library.service.BookService;
+import com.library.service.CirculationRollups;
+import com.library.service.FineAccrualService;
+import com.library.service.LibraryStats;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.math.BigDecimal;
-import java.util.HashMap;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -21,39 +27,39 @@ import java.util.Map;
 @RequestMapping("/admin")
 public class AdminController {
 
+    private static final int REPORT_TOP_BOOKS = 10;
+    private static final int CIRCULATION_DEFAULT_DAYS = 30;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookLockManager bookLockManager;
+
+    @Autowired
+    private LibraryStats libraryStats;
+
     @Autowired
-    private BookRepository bookRepository;
+    private FineAccrualService fineAccrualService;
 
     @Autowired
-    private BorrowRecordRepository borrowRecordRepository;
+    private ActiveLoanCounter activeLoanCounter;
 
     @Autowired
-    private UserRepository userRepository;
+    private CirculationRollups circulationRollups;
 
     @GetMapping("/reports")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<AdminReportResponse> getReports() {
-        // Basic statistics
-        long totalBooks = bookRepository.count();
-        long totalUsers = userRepository.count();
-        long totalBorrowed = borrowRecordRepository.count();
-        long totalReturned = 0; // We'll calculate this differently
-        long overdueBooks = 0; // We'll calculate this differently
-        
-        // Calculate available books (simplified)
-        long totalAvailable = totalBooks - totalBorrowed;
-
-        // Most borrowed books
-        List<Object[]> mostBorrowedBooks = borrowRecordRepository.findMostBorrowedBooks();
-
+        // Counters are kept live by LibraryStats, the ranking by BorrowPopularity
         AdminReportResponse response = new AdminReportResponse();
-        response.setTotalBooks(totalBooks);
-        response.setTotalUsers(totalUsers);
-        response.setTotalBorrowed(totalBorrowed);
-        response.setTotalReturned(totalReturned);
-        response.setTotalAvailable(totalAvailable);
-        response.setOverdueBooks(overdueBooks);
-        response.setMostBorrowedBooks(mostBorrowedBooks);
+        response.setTotalBooks(libraryStats.books());
+        response.setTotalUsers(libraryStats.users());
+        response.setTotalBorrowed(libraryStats.activeLoans() + libraryStats.returnedLoans());
+        response.setTotalReturned(libraryStats.returnedLoans());
+        response.setTotalAvailable(libraryStats.availableCopies());
+        response.setOverdueBooks(libraryStats.overdueLoans());
+        response.setMostBorrowedBooks(bookService.mostBorrowed("all", REPORT_TOP_BOOKS));
 
         return ResponseEntity.ok(response);
     }
@@ -61,14 +67,66 @@ public class AdminController {
     @GetMapping("/dashboard-stats")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
-        Map<String, Object> stats = new HashMap<>();
-        
-        // Quick stats for dashboard cards
-        stats.put("totalBooks", bookRepository.count());
-        stats.put("totalUsers", userRepository.count());
-        stats.put("activeBorrows", borrowRecordRepository.count());
-        stats.put("overdueBooks", 0L);
-        
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok(libraryStats.snapshot());
+    }
+
+    @GetMapping("/top-borrowed")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<BookBorrowCount>> getTopBorrowed(@RequestParam(value = "window", defaultValue = "all") String window,
+                                                                @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(bookService.mostBorrowed(window, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(bookService.cacheStats());
+    }
+
+    @GetMapping("/lock-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getLockStats() {
+        return ResponseEntity.ok(bookLockManager.stats());
+    }
+
+    @GetMapping("/fine-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getFineStats() {
+        return ResponseEntity.ok(fineAccrualService.stats());
+    }
+
+    @GetMapping("/loan-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getLoanStats() {
+        return ResponseEntity.ok(activeLoanCounter.stats());
+    }
+
+    @GetMapping("/circulation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CirculationBucket>> getCirculation(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "granularity", defaultValue = "day") String granularity,
+            @RequestParam(value = "byCategory", defaultValue = "false") boolean byCategory,
+            @RequestParam(value = "byRole", defaultValue = "false") boolean byRole) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(CIRCULATION_DEFAULT_DAYS - 1);
+        try {
+            return ResponseEntity.ok(circulationRollups.range(start, end, granularity, byCategory, byRole));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/circulation/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> backfillCirculation(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(circulationRollups.backfill(from, to != null ? to : LocalDate.now()));
     }
 }
@@ -1,14 +1,30 @@
 package com.library.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.library.dto.BookPage;
+import com.library.dto.BookSuggestion;
+import com.library.dto.CategoryFacet;
+import com.library.dto.FacetedSearchResponse;
 import com.library.entity.Book;
 import com.library.service.BookService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/books")
@@ -17,16 +33,61 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Clients may keep catalog responses but must revalidate them with If-None-Match
+    private static final CacheControl CATALOG_CACHE = CacheControl.noCache().cachePublic();
+
     @GetMapping
-    public ResponseEntity<List<Book>> getAll() {
-        return ResponseEntity.ok(bookService.getAll());
+    public ResponseEntity<List<Book>> getAll(WebRequest request) {
+        return conditional(request, "books", bookService::getAll);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<BookPage> page(@RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "size", defaultValue = "20") int size,
+                                         @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                         @RequestParam(value = "direction", defaultValue = "ASC") Sort.Direction direction) {
+        try {
+            return ResponseEntity.ok(bookService.page(cursor, size, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Stream the whole catalog as newline-delimited JSON while it is read from the database
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream() {
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                bookService.streamAll(book -> {
+                    try {
+                        writer.write(book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getById(@PathVariable Long id) {
-        return bookService.getById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Book> getById(@PathVariable Long id, WebRequest request) {
+        String etag = bookService.catalogEtag("book-" + id);
+        if (request.checkNotModified(etag)) {
+            return notModified();
+        }
+        Optional<Book> book = bookService.getById(id);
+        if (book.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CATALOG_CACHE).body(book.get());
     }
 
     @PostMapping
@@ -49,12 +110,58 @@ public class BookController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> search(@RequestParam("q") String keyword) {
-        return ResponseEntity.ok(bookService.search(keyword));
+    public ResponseEntity<List<Book>> search(@RequestParam("q") String keyword,
+                                             @RequestParam(value = "mode", defaultValue = "exact") String mode,
+                                             @RequestParam(value = "available", defaultValue = "false") boolean availableOnly) {
+        if ("ranked".equalsIgnoreCase(mode)) {
+            return ResponseEntity.ok(bookService.rankedSearch(keyword, availableOnly));
+        }
+        return ResponseEntity.ok(bookService.search(keyword, availableOnly));
+    }
+
+    @GetMapping("/available")
+    public ResponseEntity<List<Book>> available(@RequestParam(value = "category", required = false) String category) {
+        return ResponseEntity.ok(bookService.available(category));
+    }
+
+    @GetMapping("/search/faceted")
+    public ResponseEntity<FacetedSearchResponse> facetedSearch(@RequestParam(value = "q", required = false) String keyword,
+                                                               @RequestParam(value = "category", required = false) String category,
+                                                               @RequestParam(value = "available", defaultValue = "false") boolean availableOnly,
+                                                               @RequestParam(value = "after", required = false) Long after,
+                                                               @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(bookService.facetedSearch(keyword, category, availableOnly, after, size));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<List<CategoryFacet>> facets(WebRequest request) {
+        return conditional(request, "facets", bookService::facets);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestion>> suggest(@RequestParam("prefix") String prefix,
+                                                        @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.suggest(prefix, limit));
     }
 
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> categories() {
-        return ResponseEntity.ok(bookService.categories());
+    public ResponseEntity<List<String>> categories(WebRequest request) {
+        return conditional(request, "categories", bookService::categories);
+    }
+
+    /**
+     * Answer 304 from the catalog version alone, only building the body when it changed
+     */
+    private <T> ResponseEntity<T> conditional(WebRequest request, String resource, Supplier<T> body) {
+        String etag = bookService.catalogEtag(resource);
+        if (request.checkNotModified(etag)) {
+            return notModified();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CATALOG_CACHE).body(body.get());
+    }
+
+    private <T> ResponseEntity<T> notModified() {
+        // checkNotModified has already written the ETag header
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CATALOG_CACHE).build();
     }
 }
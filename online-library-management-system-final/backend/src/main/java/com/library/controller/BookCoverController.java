@@ -3,6 +3,7 @@ package com.library.controller;
 import com.library.entity.Book;
 import com.library.repository.BookRepository;
 import com.library.service.BookCoverService;
+import com.library.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -30,6 +31,9 @@ public class BookCoverController {
     @Autowired
     private BookCoverService bookCoverService;
 
+    @Autowired
+    private BookService bookService;
+
     private static final String UPLOAD_DIR = "uploads/covers/";
 
     /**
@@ -39,7 +43,7 @@ public class BookCoverController {
     public ResponseEntity<?> uploadBookCover(@PathVariable Long bookId, 
                                            @RequestParam("file") MultipartFile file) {
         try {
-            Optional<Book> bookOpt = bookRepository.findById(bookId);
+            Optional<Book> bookOpt = bookService.getById(bookId);
             if (!bookOpt.isPresent()) {
                 return ResponseEntity.notFound().build();
             }
@@ -74,8 +78,7 @@ public class BookCoverController {
 
             // Update book with new cover URL
             String coverUrl = "/uploads/covers/" + filename;
-            book.setCoverImageUrl(coverUrl);
-            bookRepository.save(book);
+            bookService.updateCover(book, coverUrl);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Cover uploaded successfully");
@@ -93,7 +96,7 @@ public class BookCoverController {
      */
     @PostMapping("/fetch/{bookId}")
     public ResponseEntity<?> fetchBookCover(@PathVariable Long bookId) {
-        Optional<Book> bookOpt = bookRepository.findById(bookId);
+        Optional<Book> bookOpt = bookService.getById(bookId);
         if (!bookOpt.isPresent()) {
             return ResponseEntity.notFound().build();
         }
@@ -107,8 +110,7 @@ public class BookCoverController {
         Map<String, Object> response = new HashMap<>();
         
         if (coverUrl.isPresent()) {
-            book.setCoverImageUrl(coverUrl.get());
-            bookRepository.save(book);
+            bookService.updateCover(book, coverUrl.get());
             
             response.put("message", "Cover fetched successfully");
             response.put("coverUrl", coverUrl.get());
@@ -116,8 +118,7 @@ public class BookCoverController {
         } else {
             // Use themed placeholder
             String placeholderUrl = bookCoverService.getThemedPlaceholder(book.getCategory());
-            book.setCoverImageUrl(placeholderUrl);
-            bookRepository.save(book);
+            bookService.updateCover(book, placeholderUrl);
             
             response.put("message", "No cover found, using themed placeholder");
             response.put("coverUrl", placeholderUrl);
@@ -133,7 +134,7 @@ public class BookCoverController {
     @PutMapping("/url/{bookId}")
     public ResponseEntity<?> updateBookCoverUrl(@PathVariable Long bookId, 
                                               @RequestBody Map<String, String> request) {
-        Optional<Book> bookOpt = bookRepository.findById(bookId);
+        Optional<Book> bookOpt = bookService.getById(bookId);
         if (!bookOpt.isPresent()) {
             return ResponseEntity.notFound().build();
         }
@@ -145,8 +146,7 @@ public class BookCoverController {
             return ResponseEntity.badRequest().body("Cover URL is required");
         }
 
-        book.setCoverImageUrl(coverUrl);
-        bookRepository.save(book);
+        bookService.updateCover(book, coverUrl);
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Cover URL updated successfully");
@@ -160,7 +160,7 @@ public class BookCoverController {
      */
     @DeleteMapping("/{bookId}")
     public ResponseEntity<?> removeBookCover(@PathVariable Long bookId) {
-        Optional<Book> bookOpt = bookRepository.findById(bookId);
+        Optional<Book> bookOpt = bookService.getById(bookId);
         if (!bookOpt.isPresent()) {
             return ResponseEntity.notFound().build();
         }
@@ -168,8 +168,7 @@ public class BookCoverController {
         Book book = bookOpt.get();
         String placeholderUrl = bookCoverService.getThemedPlaceholder(book.getCategory());
         
-        book.setCoverImageUrl(placeholderUrl);
-        bookRepository.save(book);
+        bookService.updateCover(book, placeholderUrl);
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Cover removed, using themed placeholder");
@@ -203,14 +202,12 @@ public class BookCoverController {
             );
 
             if (coverUrl.isPresent()) {
-                book.setCoverImageUrl(coverUrl.get());
-                bookRepository.save(book);
+                bookService.updateCover(book, coverUrl.get());
                 updated++;
             } else {
                 // Use themed placeholder
                 String placeholderUrl = bookCoverService.getThemedPlaceholder(book.getCategory());
-                book.setCoverImageUrl(placeholderUrl);
-                bookRepository.save(book);
+                bookService.updateCover(book, placeholderUrl);
                 failed++;
             }
         }
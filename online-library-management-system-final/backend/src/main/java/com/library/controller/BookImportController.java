@@ -0,0 +1,49 @@
+package com.library.controller;
+
+import com.library.dto.BookImportResult;
+import com.library.service.BookImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/books")
+@PreAuthorize("hasRole('ADMIN')")
+public class BookImportController {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    /**
+     * Bulk import books from a CSV (with header row) or JSON-lines request body
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importBooks(InputStream body,
+                                         @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                         @RequestParam(value = "format", required = false) String format) throws IOException {
+        BookImportService.Format resolved;
+        if (format != null) {
+            resolved = "csv".equalsIgnoreCase(format) ? BookImportService.Format.CSV : BookImportService.Format.JSONL;
+        } else {
+            resolved = contentType != null && contentType.contains("csv") ? BookImportService.Format.CSV : BookImportService.Format.JSONL;
+        }
+        try {
+            BookImportResult result = bookImportService.importBooks(body, resolved);
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/import/progress")
+    public ResponseEntity<Map<String, Object>> progress() {
+        return ResponseEntity.ok(bookImportService.progress());
+    }
+}
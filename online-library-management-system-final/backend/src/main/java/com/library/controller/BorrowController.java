@@ -1,10 +1,14 @@
 package com.library.controller;
 
+import com.library.dto.BatchBorrowRequest;
+import com.library.dto.BatchBorrowResponse;
+import com.library.dto.LoanSummary;
 import com.library.entity.Book;
-import com.library.entity.BorrowRecord;
 import com.library.service.AuthContextService;
 import com.library.service.BookService;
 import com.library.service.BorrowService;
+import com.library.service.IdempotencyStore;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,23 +28,54 @@ public class BorrowController {
     @Autowired
     private AuthContextService authContextService;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     @PostMapping("/borrow/{bookId}")
-    public ResponseEntity<BorrowRecord> borrow(@PathVariable Long bookId) {
-        Book book = bookService.getById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        var user = authContextService.getCurrentUserOrThrow();
-        return ResponseEntity.ok(borrowService.borrowBook(user, book));
+    public ResponseEntity<LoanSummary> borrow(@PathVariable Long bookId,
+                                               @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, scope("borrow/" + bookId), () -> {
+            Book book = bookService.getById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
+            var user = authContextService.getCurrentUserOrThrow();
+            return ResponseEntity.ok(LoanSummary.from(borrowService.borrowBook(user, book)));
+        });
     }
 
     @PostMapping("/return/{bookId}")
-    public ResponseEntity<BorrowRecord> returnBook(@PathVariable Long bookId) {
-        Book book = bookService.getById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        var user = authContextService.getCurrentUserOrThrow();
-        return ResponseEntity.ok(borrowService.returnBook(user, book));
+    public ResponseEntity<LoanSummary> returnBook(@PathVariable Long bookId,
+                                                   @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, scope("return/" + bookId), () -> {
+            Book book = bookService.getById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
+            var user = authContextService.getCurrentUserOrThrow();
+            return ResponseEntity.ok(LoanSummary.from(borrowService.returnBook(user, book)));
+        });
+    }
+
+    @PostMapping("/borrow/batch")
+    public ResponseEntity<BatchBorrowResponse> borrowBatch(@Valid @RequestBody BatchBorrowRequest request,
+                                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, scope("borrow/batch" + request.getBookIds()), () -> {
+            var user = authContextService.getCurrentUserOrThrow();
+            return ResponseEntity.ok(borrowService.borrowBooks(user, request.getBookIds()));
+        });
+    }
+
+    @PostMapping("/return/batch")
+    public ResponseEntity<BatchBorrowResponse> returnBatch(@Valid @RequestBody BatchBorrowRequest request,
+                                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, scope("return/batch" + request.getBookIds()), () -> {
+            var user = authContextService.getCurrentUserOrThrow();
+            return ResponseEntity.ok(borrowService.returnBooks(user, request.getBookIds()));
+        });
     }
 
     @GetMapping("/history")
-    public ResponseEntity<List<BorrowRecord>> history() {
+    public ResponseEntity<List<LoanSummary>> history() {
         var user = authContextService.getCurrentUserOrThrow();
         return ResponseEntity.ok(borrowService.history(user));
     }
+
+    private String scope(String operation) {
+        return authContextService.getCurrentUserId() + ":/borrow/" + operation;
+    }
 }
@@ -0,0 +1,70 @@
+package com.library.controller;
+
+import com.library.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/admin/export")
+@PreAuthorize("hasRole('ADMIN')")
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    @FunctionalInterface
+    private interface Exporter {
+        void export(long afterId, ExportService.Format format, OutputStream out) throws IOException;
+    }
+
+    /**
+     * Export the catalog; pass the last id received as afterId to resume an interrupted export
+     */
+    @GetMapping("/books")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(value = "format", defaultValue = "CSV") ExportService.Format format,
+                                                             @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+                                                             @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        return stream("books", format, afterId, gzip, exportService::exportBooks);
+    }
+
+    /**
+     * Export the loan history; pass the last id received as afterId to resume an interrupted export
+     */
+    @GetMapping("/borrow-records")
+    public ResponseEntity<StreamingResponseBody> exportBorrowRecords(@RequestParam(value = "format", defaultValue = "CSV") ExportService.Format format,
+                                                                     @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+                                                                     @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        return stream("borrow-records", format, afterId, gzip, exportService::exportBorrowRecords);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, ExportService.Format format, long afterId,
+                                                         boolean gzip, Exporter exporter) {
+        String filename = name + (format == ExportService.Format.CSV ? ".csv" : ".jsonl") + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : format == ExportService.Format.CSV ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_NDJSON;
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream zipped = new GZIPOutputStream(out, 64 * 1024);
+                exporter.export(afterId, format, zipped);
+                zipped.finish();
+            } else {
+                exporter.export(afterId, format, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,75 @@
+package com.library.controller;
+
+import com.library.dto.ReportJobResponse;
+import com.library.service.ReportJobs;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/report-jobs")
+@PreAuthorize("hasRole('ADMIN')")
+public class ReportJobController {
+
+    private static final long MAX_WAIT_MS = 60_000;
+
+    @Autowired
+    private ReportJobs reportJobs;
+
+    /**
+     * Submit a report; every query parameter other than type is a report parameter.
+     * Answers 200 with the result when an identical report is cached, otherwise 202 with
+     * the job to poll.
+     */
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestParam("type") String type, @RequestParam Map<String, String> parameters) {
+        Map<String, String> reportParameters = new HashMap<>(parameters);
+        reportParameters.remove("type");
+        try {
+            ReportJobResponse job = reportJobs.submit(type, reportParameters);
+            if ("DONE".equals(job.getStatus())) {
+                return ResponseEntity.ok(job);
+            }
+            return ResponseEntity.accepted().location(URI.create("/api/admin/report-jobs/" + job.getId())).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(reportJobs.stats());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportJobResponse> poll(@PathVariable String id) {
+        return reportJobs.find(id).map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Wait up to waitMs for the job to finish without holding a request thread; answers
+     * 202 with the current state if it is still running by then
+     */
+    @GetMapping("/{id}/result")
+    public DeferredResult<ResponseEntity<ReportJobResponse>> await(@PathVariable String id,
+                                                                   @RequestParam(value = "waitMs", defaultValue = "30000") long waitMs) {
+        long timeout = Math.max(1, Math.min(waitMs, MAX_WAIT_MS));
+        DeferredResult<ResponseEntity<ReportJobResponse>> deferred = new DeferredResult<>(timeout);
+        deferred.onTimeout(() -> deferred.setResult(reportJobs.find(id)
+                .map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job))
+                .orElseGet(() -> ResponseEntity.notFound().build())));
+        reportJobs.whenDone(id).ifPresentOrElse(
+                done -> done.thenAccept(job -> deferred.setResult(ResponseEntity.ok(job))),
+                () -> deferred.setResult(ResponseEntity.notFound().build()));
+        return deferred;
+    }
+}
@@ -1,9 +1,10 @@
 package com.library.controller;
 
+import com.library.dto.ReservationSummary;
 import com.library.entity.Book;
-import com.library.entity.Reservation;
 import com.library.service.AuthContextService;
 import com.library.service.BookService;
+import com.library.service.IdempotencyStore;
 import com.library.service.ReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -24,24 +25,37 @@ public class ReservationController {
     @Autowired
     private AuthContextService authContextService;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     @PostMapping("/reserve/{bookId}")
-    public ResponseEntity<Reservation> reserve(@PathVariable Long bookId) {
-        Book book = bookService.getById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        var user = authContextService.getCurrentUserOrThrow();
-        return ResponseEntity.ok(reservationService.reserve(user, book));
+    public ResponseEntity<ReservationSummary> reserve(@PathVariable Long bookId,
+                                               @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, scope("reserve/" + bookId), () -> {
+            Book book = bookService.getById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
+            var user = authContextService.getCurrentUserOrThrow();
+            return ResponseEntity.ok(ReservationSummary.from(reservationService.reserve(user, book), book));
+        });
     }
 
     @PostMapping("/cancel/{bookId}")
-    public ResponseEntity<Void> cancel(@PathVariable Long bookId) {
-        Book book = bookService.getById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        var user = authContextService.getCurrentUserOrThrow();
-        reservationService.cancel(user, book);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Void> cancel(@PathVariable Long bookId,
+                                       @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, scope("cancel/" + bookId), () -> {
+            Book book = bookService.getById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
+            var user = authContextService.getCurrentUserOrThrow();
+            reservationService.cancel(user, book);
+            return ResponseEntity.noContent().build();
+        });
     }
 
     @GetMapping
-    public ResponseEntity<List<Reservation>> list() {
+    public ResponseEntity<List<ReservationSummary>> list() {
         var user = authContextService.getCurrentUserOrThrow();
         return ResponseEntity.ok(reservationService.list(user));
     }
+
+    private String scope(String operation) {
+        return authContextService.getCurrentUserId() + ":/reservations/" + operation;
+    }
 }
@@ -9,7 +9,7 @@ public class AdminReportResponse {
     private long totalReturned;
     private long totalAvailable;
     private long overdueBooks;
-    private List<Object[]> mostBorrowedBooks;
+    private List<BookBorrowCount> mostBorrowedBooks;
 
     public long getTotalBooks() {
         return totalBooks;
@@ -59,11 +59,11 @@ public class AdminReportResponse {
         this.overdueBooks = overdueBooks;
     }
 
-    public List<Object[]> getMostBorrowedBooks() {
+    public List<BookBorrowCount> getMostBorrowedBooks() {
         return mostBorrowedBooks;
     }
 
-    public void setMostBorrowedBooks(List<Object[]> mostBorrowedBooks) {
+    public void setMostBorrowedBooks(List<BookBorrowCount> mostBorrowedBooks) {
         this.mostBorrowedBooks = mostBorrowedBooks;
     }
 }
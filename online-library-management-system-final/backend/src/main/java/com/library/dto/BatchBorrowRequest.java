@@ -0,0 +1,30 @@
+package com.library.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchBorrowRequest {
+    public static final int MAX_BOOKS = 20;
+
+    @NotEmpty(message = "At least one book id is required")
+    @Size(max = MAX_BOOKS, message = "At most " + MAX_BOOKS + " books per request")
+    private List<Long> bookIds;
+
+    // Constructors
+    public BatchBorrowRequest() {}
+
+    public BatchBorrowRequest(List<Long> bookIds) {
+        this.bookIds = bookIds;
+    }
+
+    // Getters and Setters
+    public List<Long> getBookIds() {
+        return bookIds;
+    }
+
+    public void setBookIds(List<Long> bookIds) {
+        this.bookIds = bookIds;
+    }
+}
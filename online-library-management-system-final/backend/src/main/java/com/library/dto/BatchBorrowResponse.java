@@ -0,0 +1,75 @@
+package com.library.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchBorrowResponse {
+    private int succeeded;
+    private int failed;
+    private List<ItemResult> results = new ArrayList<>();
+
+    public void addSuccess(Long bookId, LoanSummary record) {
+        succeeded++;
+        results.add(new ItemResult(bookId, true, null, record));
+    }
+
+    public void addFailure(Long bookId, String message) {
+        failed++;
+        results.add(new ItemResult(bookId, false, message, null));
+    }
+
+    // Getters and Setters
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<ItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<ItemResult> results) {
+        this.results = results;
+    }
+
+    public static class ItemResult {
+        private Long bookId;
+        private boolean success;
+        private String message;
+        private LoanSummary record;
+
+        public ItemResult(Long bookId, boolean success, String message, LoanSummary record) {
+            this.bookId = bookId;
+            this.success = success;
+            this.message = message;
+            this.record = record;
+        }
+
+        public Long getBookId() {
+            return bookId;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public LoanSummary getRecord() {
+            return record;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.library.dto;
+
+public class BookBorrowCount {
+    private Long bookId;
+    private String title;
+    private long count;
+    private long maxOvercount;
+
+    public BookBorrowCount(Long bookId, String title, long count, long maxOvercount) {
+        this.bookId = bookId;
+        this.title = title;
+        this.count = count;
+        this.maxOvercount = maxOvercount;
+    }
+
+    // Getters and Setters
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getMaxOvercount() {
+        return maxOvercount;
+    }
+
+    public void setMaxOvercount(long maxOvercount) {
+        this.maxOvercount = maxOvercount;
+    }
+}
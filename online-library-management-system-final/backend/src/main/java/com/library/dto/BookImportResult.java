@@ -0,0 +1,96 @@
+package com.library.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookImportResult {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long processed;
+    private long imported;
+    private long failed;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+
+    public void addError(long line, String isbn, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, isbn, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public void addProcessed(long rows) {
+        processed += rows;
+    }
+
+    public void addImported(long rows) {
+        imported += rows;
+    }
+
+    // Getters and Setters
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    public static class RowError {
+        private long line;
+        private String isbn;
+        private String message;
+
+        public RowError(long line, String isbn, String message) {
+            this.line = line;
+            this.isbn = isbn;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
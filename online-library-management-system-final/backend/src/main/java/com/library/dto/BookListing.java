@@ -0,0 +1,55 @@
+package com.library.dto;
+
+import com.library.entity.Book;
+
+/**
+ * The columns a search result row shows, without the rest of the book
+ */
+public class BookListing {
+    private final Long id;
+    private final String title;
+    private final String author;
+    private final String category;
+    private final Integer availableCopies;
+    private final Integer totalCopies;
+
+    public BookListing(Long id, String title, String author, String category,
+                       Integer availableCopies, Integer totalCopies) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.category = category;
+        this.availableCopies = availableCopies;
+        this.totalCopies = totalCopies;
+    }
+
+    public static BookListing of(Book book) {
+        return new BookListing(book.getId(), book.getTitle(), book.getAuthor(), book.getCategory(),
+                book.getAvailableCopies(), book.getTotalCopies());
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Integer getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public Integer getTotalCopies() {
+        return totalCopies;
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.dto;
+
+import com.library.entity.Book;
+
+import java.util.List;
+
+public class BookPage {
+    private List<Book> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public BookPage(List<Book> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<Book> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Book> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
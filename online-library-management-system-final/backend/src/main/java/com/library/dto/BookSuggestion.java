@@ -0,0 +1,48 @@
+package com.library.dto;
+
+public class BookSuggestion {
+    private Long id;
+    private String title;
+    private String author;
+    private long borrowCount;
+
+    public BookSuggestion(Long id, String title, String author, long borrowCount) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.borrowCount = borrowCount;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public void setBorrowCount(long borrowCount) {
+        this.borrowCount = borrowCount;
+    }
+}
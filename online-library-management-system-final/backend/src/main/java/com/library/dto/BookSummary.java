@@ -0,0 +1,35 @@
+package com.library.dto;
+
+/**
+ * The few book columns shown next to a loan or reservation
+ */
+public class BookSummary {
+    private final Long id;
+    private final String title;
+    private final String author;
+    private final Double price;
+
+    public BookSummary(Long id, String title, String author, Double price) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.price = price;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+}
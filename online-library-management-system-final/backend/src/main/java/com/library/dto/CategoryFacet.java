@@ -0,0 +1,38 @@
+package com.library.dto;
+
+public class CategoryFacet {
+    private String category;
+    private long bookCount;
+    private long availableCopies;
+
+    public CategoryFacet(String category, long bookCount, long availableCopies) {
+        this.category = category;
+        this.bookCount = bookCount;
+        this.availableCopies = availableCopies;
+    }
+
+    // Getters and Setters
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public long getBookCount() {
+        return bookCount;
+    }
+
+    public void setBookCount(long bookCount) {
+        this.bookCount = bookCount;
+    }
+
+    public long getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public void setAvailableCopies(long availableCopies) {
+        this.availableCopies = availableCopies;
+    }
+}
@@ -0,0 +1,66 @@
+package com.library.dto;
+
+import com.library.entity.CirculationRollup;
+import com.library.entity.User;
+
+import java.time.LocalDateTime;
+
+public class CirculationBucket {
+    private LocalDateTime bucketStart;
+    private CirculationRollup.Activity activity;
+    /** Null unless the range was split by category */
+    private String category;
+    /** Null unless the range was split by role */
+    private User.Role role;
+    private long count;
+
+    public CirculationBucket(LocalDateTime bucketStart, CirculationRollup.Activity activity,
+                             String category, User.Role role, long count) {
+        this.bucketStart = bucketStart;
+        this.activity = activity;
+        this.category = category;
+        this.role = role;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public CirculationRollup.Activity getActivity() {
+        return activity;
+    }
+
+    public void setActivity(CirculationRollup.Activity activity) {
+        this.activity = activity;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    public void setRole(User.Role role) {
+        this.role = role;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,50 @@
+package com.library.dto;
+
+import java.util.List;
+
+public class FacetedSearchResponse {
+    private List<BookListing> results;
+    private List<CategoryFacet> facets;
+    private Long nextAfter;
+    private boolean hasMore;
+
+    public FacetedSearchResponse(List<BookListing> results, List<CategoryFacet> facets, Long nextAfter, boolean hasMore) {
+        this.results = results;
+        this.facets = facets;
+        this.nextAfter = nextAfter;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<BookListing> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BookListing> results) {
+        this.results = results;
+    }
+
+    public List<CategoryFacet> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(List<CategoryFacet> facets) {
+        this.facets = facets;
+    }
+
+    public Long getNextAfter() {
+        return nextAfter;
+    }
+
+    public void setNextAfter(Long nextAfter) {
+        this.nextAfter = nextAfter;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
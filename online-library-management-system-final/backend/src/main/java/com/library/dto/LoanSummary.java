@@ -0,0 +1,77 @@
+package com.library.dto;
+
+import com.library.entity.Book;
+import com.library.entity.BorrowRecord;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A loan as shown in borrow history, selected column by column instead of loading the
+ * record with its user and book entities
+ */
+public class LoanSummary {
+    private final Long id;
+    private final BookSummary book;
+    private final LocalDate borrowDate;
+    private final LocalDate returnDate;
+    private final BorrowRecord.Status status;
+    private final BigDecimal fineAmount;
+    private final Boolean finePaid;
+
+    /** Used by JPQL constructor expressions */
+    public LoanSummary(Long id, Long bookId, String title, String author, Double price, LocalDate borrowDate,
+                       LocalDate returnDate, BorrowRecord.Status status, BigDecimal fineAmount, Boolean finePaid) {
+        this.id = id;
+        this.book = new BookSummary(bookId, title, author, price);
+        this.borrowDate = borrowDate;
+        this.returnDate = returnDate;
+        this.status = status;
+        this.fineAmount = fineAmount;
+        this.finePaid = finePaid;
+    }
+
+    public static LoanSummary from(BorrowRecord record) {
+        Book book = record.getBook();
+        return new LoanSummary(record.getId(), book.getId(), book.getTitle(), book.getAuthor(), book.getPrice(),
+                record.getBorrowDate(), record.getReturnDate(), record.getStatus(), record.getFineAmount(),
+                record.getFinePaid());
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public BookSummary getBook() {
+        return book;
+    }
+
+    public LocalDate getBorrowDate() {
+        return borrowDate;
+    }
+
+    public LocalDate getDueDate() {
+        return borrowDate.plusDays(BorrowRecord.LOAN_PERIOD_DAYS);
+    }
+
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+
+    public BorrowRecord.Status getStatus() {
+        return status;
+    }
+
+    public BigDecimal getFineAmount() {
+        return fineAmount;
+    }
+
+    public Boolean getFinePaid() {
+        return finePaid;
+    }
+
+    public boolean isOverdue() {
+        return status != BorrowRecord.Status.RETURNED && LocalDate.now().isAfter(getDueDate());
+    }
+}
@@ -0,0 +1,103 @@
+package com.library.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class ReportJobResponse {
+    private String id;
+    private String type;
+    private Map<String, String> parameters;
+    private String status;
+    /** True when the request was answered by a job already running or finished */
+    private boolean reused;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private Object result;
+    private String error;
+
+    public ReportJobResponse(String id, String type, Map<String, String> parameters, String status, boolean reused,
+                             LocalDateTime submittedAt, LocalDateTime completedAt, Object result, String error) {
+        this.id = id;
+        this.type = type;
+        this.parameters = parameters;
+        this.status = status;
+        this.reused = reused;
+        this.submittedAt = submittedAt;
+        this.completedAt = completedAt;
+        this.result = result;
+        this.error = error;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(Map<String, String> parameters) {
+        this.parameters = parameters;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public boolean isReused() {
+        return reused;
+    }
+
+    public void setReused(boolean reused) {
+        this.reused = reused;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public void setResult(Object result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
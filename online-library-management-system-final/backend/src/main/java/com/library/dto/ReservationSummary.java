@@ -0,0 +1,55 @@
+package com.library.dto;
+
+import com.library.entity.Book;
+import com.library.entity.Reservation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A reservation as listed to its owner, selected column by column so the lazy book and
+ * user associations are never touched
+ */
+public class ReservationSummary {
+    private final Long id;
+    private final BookSummary book;
+    private final LocalDate reservationDate;
+    private final Reservation.Status status;
+    private final LocalDateTime readyUntil;
+
+    /** Used by JPQL constructor expressions */
+    public ReservationSummary(Long id, Long bookId, String title, String author, Double price,
+                              LocalDate reservationDate, Reservation.Status status, LocalDateTime readyUntil) {
+        this.id = id;
+        this.book = new BookSummary(bookId, title, author, price);
+        this.reservationDate = reservationDate;
+        this.status = status;
+        this.readyUntil = readyUntil;
+    }
+
+    public static ReservationSummary from(Reservation reservation, Book book) {
+        return new ReservationSummary(reservation.getId(), book.getId(), book.getTitle(), book.getAuthor(),
+                book.getPrice(), reservation.getReservationDate(), reservation.getStatus(), reservation.getReadyUntil());
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public BookSummary getBook() {
+        return book;
+    }
+
+    public LocalDate getReservationDate() {
+        return reservationDate;
+    }
+
+    public Reservation.Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getReadyUntil() {
+        return readyUntil;
+    }
+}
@@ -61,6 +61,7 @@ public class Book {
     public Book(String title, String author, String isbn, String category, Integer availableCopies, Integer totalCopies) {
         this.title = title;
         this.author = author;
+        this.isbn = isbn;
         this.category = category;
         this.availableCopies = availableCopies;
         this.totalCopies = totalCopies;
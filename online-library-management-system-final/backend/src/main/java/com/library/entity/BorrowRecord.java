@@ -10,6 +10,8 @@ import java.time.LocalDate;
 @Entity
 @Table(name = "borrow_records")
 public class BorrowRecord {
+    public static final int LOAN_PERIOD_DAYS = 14;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -124,12 +126,12 @@ public class BorrowRecord {
         if (status == Status.RETURNED) {
             return false;
         }
-        LocalDate dueDate = borrowDate.plusDays(14); // 14 days borrowing period
+        LocalDate dueDate = getDueDate();
         return LocalDate.now().isAfter(dueDate);
     }
 
     public LocalDate getDueDate() {
-        return borrowDate.plusDays(14);
+        return borrowDate.plusDays(LOAN_PERIOD_DAYS);
     }
 
     public long getDaysOverdue() {
@@ -0,0 +1,112 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "circulation_rollups")
+public class CirculationRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Granularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Activity activity;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "user_role", nullable = false)
+    private User.Role role;
+
+    @Column(name = "event_count", nullable = false)
+    private Long count;
+
+    public enum Granularity {
+        HOUR, DAY
+    }
+
+    public enum Activity {
+        BORROW, RETURN, RESERVE
+    }
+
+    // Constructors
+    public CirculationRollup() {}
+
+    public CirculationRollup(Granularity granularity, LocalDateTime bucketStart, Activity activity,
+                             String category, User.Role role, Long count) {
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.activity = activity;
+        this.category = category;
+        this.role = role;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public Activity getActivity() {
+        return activity;
+    }
+
+    public void setActivity(Activity activity) {
+        this.activity = activity;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    public void setRole(User.Role role) {
+        this.role = role;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+}
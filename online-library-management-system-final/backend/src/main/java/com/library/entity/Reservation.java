@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "reservations")
@@ -29,8 +30,11 @@ public class Reservation {
     @Column(nullable = false)
     private Status status = Status.ACTIVE;
 
+    @Column(name = "ready_until")
+    private LocalDateTime readyUntil;
+
     public enum Status {
-        ACTIVE, FULFILLED, CANCELLED
+        ACTIVE, READY, FULFILLED, CANCELLED, EXPIRED
     }
 
     // Constructors
@@ -83,4 +87,12 @@ public class Reservation {
     public void setStatus(Status status) {
         this.status = status;
     }
+
+    public LocalDateTime getReadyUntil() {
+        return readyUntil;
+    }
+
+    public void setReadyUntil(LocalDateTime readyUntil) {
+        this.readyUntil = readyUntil;
+    }
 }
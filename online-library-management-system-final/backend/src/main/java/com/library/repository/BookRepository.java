@@ -1,18 +1,35 @@
 package com.library.repository;
 
 import com.library.entity.Book;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByIsbn(String isbn);
     boolean existsByIsbn(String isbn);
+
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    List<Book> findByIsbnIn(Collection<String> isbns);
     
     List<Book> findByTitleContainingIgnoreCase(String title);
     List<Book> findByAuthorContainingIgnoreCase(String author);
@@ -26,6 +43,38 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     
     List<Book> findByAvailableCopiesGreaterThan(Integer copies);
     
+    @Query("SELECT COUNT(b), SUM(b.totalCopies), SUM(b.availableCopies) FROM Book b")
+    List<Object[]> catalogTotals();
+
     @Query("SELECT DISTINCT b.category FROM Book b ORDER BY b.category")
     List<String> findAllCategories();
+
+    Window<Book> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1 WHERE b.id = :id AND b.availableCopies > 0")
+    int decrementAvailableCopies(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1 WHERE b.id = :id AND b.availableCopies < b.totalCopies")
+    int incrementAvailableCopies(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.id FROM Book b WHERE b.id IN :ids AND b.availableCopies > 0")
+    List<Long> lockIdsWithAvailableCopies(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1 WHERE b.id IN :ids AND b.availableCopies > 0")
+    int decrementAvailableCopiesIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1 WHERE b.id IN :ids AND b.availableCopies < b.totalCopies")
+    int incrementAvailableCopiesIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.id, b.availableCopies FROM Book b WHERE b.id IN :ids")
+    List<Object[]> findAvailableCopiesIn(@Param("ids") Collection<Long> ids);
 }
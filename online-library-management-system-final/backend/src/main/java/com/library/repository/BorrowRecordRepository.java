@@ -1,35 +1,97 @@
 package com.library.repository;
 
+import com.library.dto.LoanSummary;
 import com.library.entity.BorrowRecord;
 import com.library.entity.User;
 import com.library.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long> {
     List<BorrowRecord> findByUserOrderByBorrowDateDesc(User user);
+
+    @Query("SELECT new com.library.dto.LoanSummary(br.id, b.id, b.title, b.author, b.price, br.borrowDate, " +
+           "br.returnDate, br.status, br.fineAmount, br.finePaid) " +
+           "FROM BorrowRecord br JOIN br.book b WHERE br.user.id = :userId ORDER BY br.borrowDate DESC")
+    List<LoanSummary> findLoanSummariesByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.library.dto.LoanSummary(br.id, b.id, b.title, b.author, b.price, br.borrowDate, " +
+           "br.returnDate, br.status, br.fineAmount, br.finePaid) " +
+           "FROM BorrowRecord br JOIN br.book b WHERE br.status = :status ORDER BY br.borrowDate")
+    List<LoanSummary> findLoanSummariesByStatus(@Param("status") BorrowRecord.Status status);
     List<BorrowRecord> findByBookOrderByBorrowDateDesc(Book book);
     List<BorrowRecord> findByStatus(BorrowRecord.Status status);
     
     Optional<BorrowRecord> findByUserAndBookAndStatus(User user, Book book, BorrowRecord.Status status);
     
-    @Query("SELECT br FROM BorrowRecord br WHERE br.status = 'BORROWED' AND br.borrowDate <= :overdueDate")
-    List<BorrowRecord> findOverdueRecords(@Param("overdueDate") LocalDate overdueDate);
+    @Query("SELECT br FROM BorrowRecord br WHERE br.user = :user AND br.book = :book AND br.status IN ('BORROWED', 'OVERDUE')")
+    Optional<BorrowRecord> findActiveByUserAndBook(@Param("user") User user, @Param("book") Book book);
     
-    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.status = 'BORROWED'")
+    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.status IN ('BORROWED', 'OVERDUE')")
     Long countBorrowedBooks();
     
-    @Query("SELECT br.book.title, COUNT(br) as borrowCount FROM BorrowRecord br " +
-           "GROUP BY br.book.id, br.book.title ORDER BY borrowCount DESC")
-    List<Object[]> findMostBorrowedBooks();
+    @Query("SELECT br.book.id, COUNT(br) FROM BorrowRecord br GROUP BY br.book.id")
+    List<Object[]> countBorrowsByBook();
+
+    @Query("SELECT br.borrowDate, br.book.id, COUNT(br) FROM BorrowRecord br WHERE br.borrowDate >= :since " +
+           "GROUP BY br.borrowDate, br.book.id ORDER BY br.borrowDate")
+    List<Object[]> countBorrowsByDateSince(@Param("since") LocalDate since);
     
-    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.user = :user AND br.status = 'BORROWED'")
+    // Listing every status lets the (status, borrow_date) index serve the date range
+    @Query("SELECT br.borrowDate, br.book.category, br.user.role, COUNT(br) FROM BorrowRecord br " +
+           "WHERE br.status IN ('BORROWED', 'RETURNED', 'OVERDUE') AND br.borrowDate BETWEEN :from AND :to " +
+           "GROUP BY br.borrowDate, br.book.category, br.user.role")
+    List<Object[]> countBorrowsByDayCategoryRole(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT br.returnDate, br.book.category, br.user.role, COUNT(br) FROM BorrowRecord br " +
+           "WHERE br.returnDate BETWEEN :from AND :to " +
+           "GROUP BY br.returnDate, br.book.category, br.user.role")
+    List<Object[]> countReturnsByDayCategoryRole(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT MIN(br.borrowDate) FROM BorrowRecord br")
+    LocalDate findEarliestBorrowDate();
+
+    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.user = :user AND br.status IN ('BORROWED', 'OVERDUE')")
     Long countActiveBooksByUser(@Param("user") User user);
+
+    @Query("SELECT br.status, COUNT(br) FROM BorrowRecord br GROUP BY br.status")
+    List<Object[]> countByStatus();
+
+    @Query("SELECT br.user.id, COUNT(br) FROM BorrowRecord br WHERE br.status IN ('BORROWED', 'OVERDUE') GROUP BY br.user.id")
+    List<Object[]> countActiveByUser();
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BorrowRecord br SET br.status = 'RETURNED', br.returnDate = :returnDate, br.fineAmount = :fine " +
+           "WHERE br.id = :id AND br.status IN ('BORROWED', 'OVERDUE')")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDate returnDate, @Param("fine") BigDecimal fine);
+
+    @Query("SELECT br FROM BorrowRecord br WHERE br.user = :user AND br.status IN ('BORROWED', 'OVERDUE') AND br.book.id IN :bookIds")
+    List<BorrowRecord> findActiveByUserAndBookIds(@Param("user") User user, @Param("bookIds") Collection<Long> bookIds);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BorrowRecord br SET br.status = 'RETURNED', br.returnDate = :returnDate, br.fineAmount = :fine " +
+           "WHERE br.id IN :ids AND br.status IN ('BORROWED', 'OVERDUE')")
+    int markReturnedIn(@Param("ids") Collection<Long> ids, @Param("returnDate") LocalDate returnDate,
+                       @Param("fine") BigDecimal fine);
+
+    @Query("SELECT br.borrowDate, COUNT(br) FROM BorrowRecord br WHERE br.status IN ('BORROWED', 'OVERDUE') GROUP BY br.borrowDate")
+    List<Object[]> countOpenByBorrowDate();
+
+    /**
+     * Mark every open loan borrowed on the given date overdue with the given fine
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BorrowRecord br SET br.status = 'OVERDUE', br.fineAmount = :fine " +
+           "WHERE br.borrowDate = :borrowDate AND br.status IN ('BORROWED', 'OVERDUE')")
+    int accrueFine(@Param("borrowDate") LocalDate borrowDate, @Param("fine") BigDecimal fine);
 }
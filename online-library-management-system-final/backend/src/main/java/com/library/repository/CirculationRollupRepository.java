@@ -0,0 +1,97 @@
+package com.library.repository;
+
+import com.library.entity.CirculationRollup;
+import com.library.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CirculationRollupRepository extends JpaRepository<CirculationRollup, Long> {
+
+    // Range sums for the report, grouped by bucket and activity and by category and role
+    // only when the caller splits by them; each row ends with the summed count
+
+    @Query("SELECT r.bucketStart, r.activity, SUM(r.count) FROM CirculationRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY r.bucketStart, r.activity ORDER BY r.bucketStart, r.activity")
+    List<Object[]> sumByBucket(@Param("granularity") CirculationRollup.Granularity granularity,
+                               @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT r.bucketStart, r.activity, r.category, SUM(r.count) FROM CirculationRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY r.bucketStart, r.activity, r.category ORDER BY r.bucketStart, r.activity, r.category")
+    List<Object[]> sumByBucketAndCategory(@Param("granularity") CirculationRollup.Granularity granularity,
+                                          @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT r.bucketStart, r.activity, r.role, SUM(r.count) FROM CirculationRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY r.bucketStart, r.activity, r.role ORDER BY r.bucketStart, r.activity, r.role")
+    List<Object[]> sumByBucketAndRole(@Param("granularity") CirculationRollup.Granularity granularity,
+                                      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT r.bucketStart, r.activity, r.category, r.role, SUM(r.count) FROM CirculationRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY r.bucketStart, r.activity, r.category, r.role " +
+           "ORDER BY r.bucketStart, r.activity, r.category, r.role")
+    List<Object[]> sumByBucketCategoryAndRole(@Param("granularity") CirculationRollup.Granularity granularity,
+                                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Monthly sums of daily buckets; rows start with the year and the month
+
+    @Query("SELECT EXTRACT(YEAR FROM r.bucketStart), EXTRACT(MONTH FROM r.bucketStart), r.activity, SUM(r.count) " +
+           "FROM CirculationRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY EXTRACT(YEAR FROM r.bucketStart), EXTRACT(MONTH FROM r.bucketStart), r.activity " +
+           "ORDER BY 1, 2, 3")
+    List<Object[]> sumByMonth(@Param("granularity") CirculationRollup.Granularity granularity,
+                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT EXTRACT(YEAR FROM r.bucketStart), EXTRACT(MONTH FROM r.bucketStart), r.activity, r.category, " +
+           "SUM(r.count) FROM CirculationRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY EXTRACT(YEAR FROM r.bucketStart), EXTRACT(MONTH FROM r.bucketStart), r.activity, r.category " +
+           "ORDER BY 1, 2, 3, 4")
+    List<Object[]> sumByMonthAndCategory(@Param("granularity") CirculationRollup.Granularity granularity,
+                                         @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT EXTRACT(YEAR FROM r.bucketStart), EXTRACT(MONTH FROM r.bucketStart), r.activity, r.role, " +
+           "SUM(r.count) FROM CirculationRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY EXTRACT(YEAR FROM r.bucketStart), EXTRACT(MONTH FROM r.bucketStart), r.activity, r.role " +
+           "ORDER BY 1, 2, 3, 4")
+    List<Object[]> sumByMonthAndRole(@Param("granularity") CirculationRollup.Granularity granularity,
+                                     @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT EXTRACT(YEAR FROM r.bucketStart), EXTRACT(MONTH FROM r.bucketStart), r.activity, r.category, " +
+           "r.role, SUM(r.count) FROM CirculationRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY EXTRACT(YEAR FROM r.bucketStart), EXTRACT(MONTH FROM r.bucketStart), r.activity, " +
+           "r.category, r.role ORDER BY 1, 2, 3, 4, 5")
+    List<Object[]> sumByMonthCategoryAndRole(@Param("granularity") CirculationRollup.Granularity granularity,
+                                             @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT MAX(r.bucketStart) FROM CirculationRollup r WHERE r.granularity = :granularity")
+    LocalDateTime findLatestBucket(@Param("granularity") CirculationRollup.Granularity granularity);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CirculationRollup r SET r.count = r.count + :delta WHERE r.granularity = :granularity " +
+           "AND r.bucketStart = :bucketStart AND r.activity = :activity AND r.category = :category AND r.role = :role")
+    int increment(@Param("granularity") CirculationRollup.Granularity granularity,
+                  @Param("bucketStart") LocalDateTime bucketStart,
+                  @Param("activity") CirculationRollup.Activity activity,
+                  @Param("category") String category,
+                  @Param("role") User.Role role,
+                  @Param("delta") long delta);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM CirculationRollup r WHERE r.granularity = :granularity " +
+           "AND r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteRange(@Param("granularity") CirculationRollup.Granularity granularity,
+                    @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
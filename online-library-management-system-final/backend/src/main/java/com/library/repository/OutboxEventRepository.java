@@ -0,0 +1,25 @@
+package com.library.repository;
+
+import com.library.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    List<OutboxEvent> findByProcessedAtIsNullOrderByIdAsc(Limit limit);
+
+    @Query("SELECT COUNT(e) FROM OutboxEvent e WHERE e.processedAt IS NULL")
+    long countPending();
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("processedAt") LocalDateTime processedAt);
+}
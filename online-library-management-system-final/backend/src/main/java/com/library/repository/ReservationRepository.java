@@ -1,21 +1,65 @@
 package com.library.repository;
 
+import com.library.dto.ReservationSummary;
 import com.library.entity.Reservation;
 import com.library.entity.User;
 import com.library.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
     List<Reservation> findByUserOrderByReservationDateDesc(User user);
+
+    @Query("SELECT new com.library.dto.ReservationSummary(r.id, b.id, b.title, b.author, b.price, " +
+           "r.reservationDate, r.status, r.readyUntil) " +
+           "FROM Reservation r JOIN r.book b WHERE r.user.id = :userId ORDER BY r.reservationDate DESC")
+    List<ReservationSummary> findSummariesByUserId(@Param("userId") Long userId);
     List<Reservation> findByBookOrderByReservationDateAsc(Book book);
     List<Reservation> findByStatus(Reservation.Status status);
+    long countByStatusIn(Collection<Reservation.Status> statuses);
     
+    // Listing every status lets the (status, reservation_date) index serve the date range
+    @Query("SELECT r.reservationDate, r.book.category, r.user.role, COUNT(r) FROM Reservation r " +
+           "WHERE r.status IN ('ACTIVE', 'READY', 'FULFILLED', 'CANCELLED', 'EXPIRED') " +
+           "AND r.reservationDate BETWEEN :from AND :to " +
+           "GROUP BY r.reservationDate, r.book.category, r.user.role")
+    List<Object[]> countReservationsByDayCategoryRole(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT MIN(r.reservationDate) FROM Reservation r")
+    LocalDate findEarliestReservationDate();
+
     Optional<Reservation> findByUserAndBookAndStatus(User user, Book book, Reservation.Status status);
     
     List<Reservation> findByBookAndStatusOrderByReservationDateAsc(Book book, Reservation.Status status);
+
+    @Query("SELECT r.id, r.book.id, r.user.id, r.status FROM Reservation r " +
+           "WHERE r.status IN ('ACTIVE', 'READY') ORDER BY r.reservationDate, r.id")
+    List<Object[]> findQueueEntries();
+
+    @Query("SELECT r.book.id, COUNT(r) FROM Reservation r WHERE r.status = 'READY' GROUP BY r.book.id")
+    List<Object[]> countHoldsByBook();
+
+    @Query("SELECT r.id, r.book.id, r.user.id, r.status FROM Reservation r " +
+           "WHERE r.book.id = :bookId AND r.status IN ('ACTIVE', 'READY') ORDER BY r.reservationDate, r.id")
+    List<Object[]> findQueueEntriesByBook(@Param("bookId") Long bookId);
+
+    @Modifying
+    @Query("UPDATE Reservation r SET r.status = 'READY', r.readyUntil = :readyUntil WHERE r.id = :id AND r.status = 'ACTIVE'")
+    int markReady(@Param("id") Long id, @Param("readyUntil") LocalDateTime readyUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Reservation r SET r.status = :to WHERE r.id IN :ids AND r.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") Reservation.Status from, @Param("to") Reservation.Status to);
 }
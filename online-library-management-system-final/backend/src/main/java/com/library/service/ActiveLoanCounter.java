@@ -0,0 +1,232 @@
+package com.library.service;
+
+import com.library.entity.User;
+import com.library.repository.BorrowRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Number of open loans per user, kept in memory so the borrowing limit is checked without
+ * a COUNT query. A borrow takes its slot before the loan is written and gives it back if
+ * the transaction rolls back, so concurrent borrows by one user cannot overshoot the
+ * limit. Returns release their slot once their transaction commits.
+ *
+ * Counts are loaded at startup and periodically reconciled with the database. Borrows and
+ * returns count as in flight from the moment they touch a user's count until their
+ * transaction completes, since until then the database and the counter disagree.
+ * Reconciliation skips users who had an operation in flight when it took its snapshot,
+ * and users whose version moved before it could write the corrected count: every change,
+ * including the end of an operation, bumps the version.
+ */
+@Component
+public class ActiveLoanCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveLoanCounter.class);
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Value("${library.loans.max-active.user:5}")
+    private int maxActiveUser;
+
+    @Value("${library.loans.max-active.admin:20}")
+    private int maxActiveAdmin;
+
+    private record Count(int active, long version, int inFlight) {
+
+        Count withActive(int newActive) {
+            return new Count(newActive, version + 1, inFlight);
+        }
+
+        Count withInFlight(int delta) {
+            return new Count(active, version + 1, inFlight + delta);
+        }
+    }
+
+    private final Map<Long, Count> counts = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+        ready = true;
+    }
+
+    @Scheduled(fixedDelayString = "${library.loans.reconcile-interval-ms:600000}",
+            initialDelayString = "${library.loans.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        Map<Long, Long> versions = new HashMap<>();
+        Set<Long> busy = new HashSet<>();
+        counts.forEach((userId, count) -> {
+            versions.put(userId, count.version());
+            if (count.inFlight() > 0) {
+                busy.add(userId);
+            }
+        });
+        Map<Long, Integer> actual = new HashMap<>();
+        for (Object[] row : borrowRecordRepository.countActiveByUser()) {
+            actual.put((Long) row[0], ((Long) row[1]).intValue());
+        }
+
+        Set<Long> userIds = new HashSet<>(versions.keySet());
+        userIds.addAll(actual.keySet());
+        int corrected = 0;
+        userIds.removeAll(busy);
+        for (Long userId : userIds) {
+            int expected = actual.getOrDefault(userId, 0);
+            Long seen = versions.get(userId);
+            boolean[] changed = {false};
+            counts.compute(userId, (id, current) -> {
+                if (current == null) {
+                    if (seen != null || expected == 0) {
+                        return null;
+                    }
+                    return new Count(expected, 0, 0);
+                }
+                if (seen == null || current.version() != seen || current.inFlight() > 0 || current.active() == expected) {
+                    // Already right, or changed since the snapshot and left for the next run
+                    return current;
+                }
+                changed[0] = true;
+                return current.withActive(expected);
+            });
+            if (changed[0]) {
+                corrected++;
+            }
+        }
+        if (ready && corrected > 0) {
+            logger.warn("Active loan counts corrected for {} users during reconciliation", corrected);
+        }
+    }
+
+    public int limitFor(User user) {
+        return user.getRole() == User.Role.ADMIN ? maxActiveAdmin : maxActiveUser;
+    }
+
+    public int active(User user) {
+        if (!ready) {
+            return borrowRecordRepository.countActiveBooksByUser(user).intValue();
+        }
+        Count count = counts.get(user.getId());
+        return count == null ? 0 : count.active();
+    }
+
+    /**
+     * Take up to the requested number of loan slots within the user's limit and return how
+     * many were granted. Inside a transaction the slots are given back if it rolls back.
+     */
+    public int acquire(User user, int requested) {
+        int limit = limitFor(user);
+        if (!ready) {
+            int free = limit - active(user);
+            return Math.max(0, Math.min(requested, free));
+        }
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        int[] granted = {0};
+        counts.compute(user.getId(), (id, current) -> {
+            Count count = current == null ? new Count(0, 0, 0) : current;
+            granted[0] = Math.max(0, Math.min(requested, limit - count.active()));
+            if (granted[0] == 0) {
+                return current;
+            }
+            Count taken = count.withActive(count.active() + granted[0]);
+            return transactional ? taken.withInFlight(1) : taken;
+        });
+        if (granted[0] > 0 && transactional) {
+            int taken = granted[0];
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(user.getId(), taken);
+                    }
+                    finish(user.getId());
+                }
+            });
+        }
+        return granted[0];
+    }
+
+    /**
+     * Give back slots taken by acquire in the current transaction that it ended up not
+     * using. If the transaction rolls back, acquire already returns every slot it took,
+     * so these are taken again to keep the count right.
+     */
+    public void releaseUnused(User user, int count) {
+        release(user.getId(), count);
+        if (ready && count > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        counts.computeIfPresent(user.getId(), (id, current) -> current.withActive(current.active() + count));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Give back loan slots when the current transaction, which closes that many loans,
+     * commits. The user counts as in flight until then.
+     */
+    public void releaseOnCommit(Long userId, int count) {
+        if (!ready || count <= 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(userId, count);
+            return;
+        }
+        counts.computeIfPresent(userId, (id, current) -> current.withInFlight(1));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(userId, count);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                finish(userId);
+            }
+        });
+    }
+
+    private void release(Long userId, int count) {
+        if (!ready || count <= 0) {
+            return;
+        }
+        counts.computeIfPresent(userId, (id, current) -> current.withActive(Math.max(0, current.active() - count)));
+    }
+
+    /**
+     * An operation on the user's count completed, so reconciliation may correct it again
+     */
+    private void finish(Long userId) {
+        counts.computeIfPresent(userId, (id, current) -> current.inFlight() > 0 ? current.withInFlight(-1) : current);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("usersWithLoans", counts.values().stream().filter(c -> c.active() > 0).count());
+        stats.put("activeLoans", counts.values().stream().mapToLong(Count::active).sum());
+        stats.put("maxActiveUser", maxActiveUser);
+        stats.put("maxActiveAdmin", maxActiveAdmin);
+        return stats;
+    }
+}
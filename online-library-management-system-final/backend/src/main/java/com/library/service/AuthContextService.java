@@ -15,11 +15,22 @@ public class AuthContextService {
     private UserRepository userRepository;
 
     public User getCurrentUserOrThrow() {
+        return userRepository.findByEmail(currentPrincipal().getEmail())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    /**
+     * Id of the authenticated user, taken from the security context without a database lookup
+     */
+    public Long getCurrentUserId() {
+        return currentPrincipal().getId();
+    }
+
+    private UserPrincipal currentPrincipal() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !(auth.getPrincipal() instanceof UserPrincipal up)) {
             throw new RuntimeException("Unauthenticated");
         }
-        return userRepository.findByEmail(up.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return up;
     }
 }
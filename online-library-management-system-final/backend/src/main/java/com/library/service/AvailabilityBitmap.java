@@ -0,0 +1,108 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ids of books with at least one copy on the shelf that is not held for pickup, kept
+ * current by BookService so "available now" filters never scan the books table.
+ */
+@Component
+public class AvailabilityBitmap {
+
+    private final IdBitmap available = new IdBitmap();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replace the whole bitmap, given the number of copies of each book held for pickup
+     */
+    public void rebuild(Collection<Book> all, Map<Long, Integer> held) {
+        lock.writeLock().lock();
+        try {
+            available.clear();
+            for (Book book : all) {
+                if (isAvailable(book, held.getOrDefault(book.getId(), 0))) {
+                    available.add(book.getId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void apply(Book book, int held) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (isAvailable(book, held)) {
+                available.add(book.getId());
+            } else {
+                available.remove(book.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            available.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(Long id) {
+        lock.readLock().lock();
+        try {
+            return available.contains(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return available.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Available ids that are also in the given set, ascending
+     */
+    public List<Long> and(IdBitmap ids) {
+        lock.readLock().lock();
+        try {
+            return available.and(ids).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * All available ids, ascending
+     */
+    public List<Long> ids() {
+        lock.readLock().lock();
+        try {
+            return available.toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean isAvailable(Book book, int held) {
+        return book.getAvailableCopies() != null && book.getAvailableCopies() > held;
+    }
+}
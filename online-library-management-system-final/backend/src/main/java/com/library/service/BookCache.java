@@ -0,0 +1,199 @@
+package com.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded read-through cache of books by id and ISBN. Callers always get their own
+ * detached copy, so mutating a returned book never changes the cached state.
+ */
+@Component
+public class BookCache {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.cache.books.max-size:10000}")
+    private long maxSize;
+
+    @Value("${library.cache.books.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    private static final int GENERATION_STRIPES = 256;
+
+    private Cache<Long, Book> byId;
+    private Cache<String, Long> idByIsbn;
+
+    /** Bumped before every eviction, so a load can tell that it may hold pre-eviction state */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    @PostConstruct
+    public void init() {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        idByIsbn = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "books.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByIsbn, "books.byIsbn");
+    }
+
+    public Optional<Book> getById(Long id) {
+        Book cached = byId.getIfPresent(id);
+        if (cached == null) {
+            // Loaded outside Caffeine's compute: a JDBC call inside the map's synchronized bin
+            // lock would pin a virtual thread to its carrier
+            long generation = generation(id);
+            cached = bookRepository.findById(id).map(BookCache::copyOf).orElse(null);
+            if (cached != null) {
+                cached = publishLoaded(cached, generation);
+            }
+        }
+        return Optional.ofNullable(cached).map(BookCache::copyOf);
+    }
+
+    /**
+     * Copies of the requested books keyed by id, loading every miss in one query
+     */
+    public Map<Long, Book> getAllById(Collection<Long> ids) {
+        Map<Long, Book> cached = new HashMap<>(byId.getAllPresent(ids));
+        List<Long> missing = ids.stream().filter(id -> !cached.containsKey(id)).distinct().toList();
+        if (!missing.isEmpty()) {
+            Map<Long, Long> loadGenerations = new HashMap<>();
+            missing.forEach(id -> loadGenerations.put(id, generation(id)));
+            for (Book book : bookRepository.findAllById(missing)) {
+                cached.put(book.getId(), publishLoaded(copyOf(book), loadGenerations.get(book.getId())));
+            }
+        }
+        Map<Long, Book> copies = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Book book = cached.get(id);
+            if (book != null) {
+                copies.put(id, copyOf(book));
+            }
+        }
+        return copies;
+    }
+
+    public Optional<Book> getByIsbn(String isbn) {
+        Long id = idByIsbn.getIfPresent(isbn);
+        if (id == null) {
+            // Only the mapping is cached here; the book itself goes in on its next lookup by
+            // id, where the load is checked against concurrent evictions
+            Optional<Book> loaded = bookRepository.findByIsbn(isbn).map(BookCache::copyOf);
+            loaded.ifPresent(book -> idByIsbn.asMap().putIfAbsent(isbn, book.getId()));
+            return loaded;
+        }
+        Optional<Book> book = getById(id);
+        if (book.isEmpty() || !isbn.equals(book.get().getIsbn())) {
+            // Stale mapping left behind by an ISBN change, resolve it again
+            idByIsbn.invalidate(isbn);
+            return bookRepository.findByIsbn(isbn).map(BookCache::copyOf);
+        }
+        return book;
+    }
+
+    /**
+     * Replace the cached state of a book after it was saved
+     */
+    public void put(Book book) {
+        evict(book.getId());
+        byId.put(book.getId(), copyOf(book));
+        idByIsbn.put(book.getIsbn(), book.getId());
+    }
+
+    public void evict(Long id) {
+        generations.incrementAndGet(stripe(id));
+        Book previous = byId.getIfPresent(id);
+        byId.invalidate(id);
+        if (previous != null) {
+            idByIsbn.invalidate(previous.getIsbn());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("byId", describe(byId.stats(), byId.estimatedSize()));
+        stats.put("byIsbn", describe(idByIsbn.stats(), idByIsbn.estimatedSize()));
+        return stats;
+    }
+
+    private static Map<String, Object> describe(CacheStats stats, long size) {
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("size", size);
+        described.put("hits", stats.hitCount());
+        described.put("misses", stats.missCount());
+        described.put("hitRate", stats.hitRate());
+        described.put("evictions", stats.evictionCount());
+        return described;
+    }
+
+    /**
+     * Cache a copy read from the database, unless the book was evicted after the read
+     * began: the copy may then predate the change (or the delete), so it is only handed
+     * to this caller. The generation is re-checked after the insert because evict bumps
+     * it before invalidating.
+     */
+    private Book publishLoaded(Book loaded, long generation) {
+        Long id = loaded.getId();
+        Book raced = byId.asMap().putIfAbsent(id, loaded);
+        if (raced != null) {
+            return raced;
+        }
+        if (generation(id) != generation) {
+            byId.asMap().remove(id, loaded);
+        }
+        return loaded;
+    }
+
+    private long generation(Long id) {
+        return generations.get(stripe(id));
+    }
+
+    private static int stripe(Long id) {
+        return Math.floorMod(Long.hashCode(id), GENERATION_STRIPES);
+    }
+
+    /**
+     * Detached copy of the book's columns, without its loan and reservation collections
+     */
+    static Book copyOf(Book book) {
+        Book copy = new Book();
+        copy.setId(book.getId());
+        copy.setTitle(book.getTitle());
+        copy.setAuthor(book.getAuthor());
+        copy.setIsbn(book.getIsbn());
+        copy.setCategory(book.getCategory());
+        copy.setAvailableCopies(book.getAvailableCopies());
+        copy.setTotalCopies(book.getTotalCopies());
+        copy.setCoverImageUrl(book.getCoverImageUrl());
+        copy.setPrice(book.getPrice());
+        return copy;
+    }
+}
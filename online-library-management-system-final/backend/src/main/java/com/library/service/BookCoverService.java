@@ -21,8 +21,8 @@ public class BookCoverService {
     private static final String OPEN_LIBRARY_SEARCH_URL = "https://openlibrary.org/search.json";
     private static final String OPEN_LIBRARY_COVER_URL = "https://covers.openlibrary.org/b";
     
-    public BookCoverService() {
-        this.restTemplate = new RestTemplate();
+    public BookCoverService(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
         this.objectMapper = new ObjectMapper();
     }
     
@@ -0,0 +1,247 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant term index using the symmetric delete technique (SymSpell): every
+ * catalog term is stored under all strings reachable by deleting up to
+ * MAX_DISTANCE characters, so a lookup only needs the deletes of the query word.
+ */
+@Component
+public class BookFuzzyIndex {
+
+    public static final int TITLE_WEIGHT = 3;
+    public static final int AUTHOR_WEIGHT = 2;
+    public static final int CATEGORY_WEIGHT = 1;
+
+    private static final int MAX_DISTANCE = 2;
+
+    // Only the first characters of a term generate deletes, which bounds memory for long words
+    private static final int PREFIX_LENGTH = 7;
+
+    private final Map<String, Map<Long, Integer>> termBooks = new HashMap<>();
+    private final Map<String, Set<String>> deletes = new HashMap<>();
+    private final Map<Long, Set<String>> bookTerms = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public record Match(String term, int distance) {}
+
+    public void rebuild(Collection<Book> all) {
+        lock.writeLock().lock();
+        try {
+            termBooks.clear();
+            deletes.clear();
+            bookTerms.clear();
+            for (Book book : all) {
+                add(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            unlink(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            unlink(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Score books against every word of the query. Each word contributes the field
+     * weight of its closest matching term, discounted by the edit distance.
+     */
+    public Map<Long, Double> score(String query) {
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String word : tokenize(query)) {
+                Map<Long, Double> best = new HashMap<>();
+                for (Match match : lookup(word)) {
+                    double discount = 1.0 / (1 + match.distance());
+                    termBooks.get(match.term()).forEach((id, weight) ->
+                            best.merge(id, weight * discount, Math::max));
+                }
+                best.forEach((id, s) -> scores.merge(id, s, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return scores;
+    }
+
+    private List<Match> lookup(String word) {
+        int maxDistance = allowedDistance(word);
+        Set<String> candidates = new HashSet<>();
+        for (String variant : deletesOf(word, maxDistance)) {
+            if (termBooks.containsKey(variant)) {
+                candidates.add(variant);
+            }
+            Set<String> terms = deletes.get(variant);
+            if (terms != null) {
+                candidates.addAll(terms);
+            }
+        }
+        List<Match> matches = new ArrayList<>();
+        for (String candidate : candidates) {
+            int distance = distance(word, candidate, maxDistance);
+            if (distance <= maxDistance) {
+                matches.add(new Match(candidate, distance));
+            }
+        }
+        return matches;
+    }
+
+    private void add(Book book) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(book.getTitle())) {
+            weights.merge(term, TITLE_WEIGHT, Math::max);
+        }
+        for (String term : tokenize(book.getAuthor())) {
+            weights.merge(term, AUTHOR_WEIGHT, Math::max);
+        }
+        for (String term : tokenize(book.getCategory())) {
+            weights.merge(term, CATEGORY_WEIGHT, Math::max);
+        }
+
+        bookTerms.put(book.getId(), weights.keySet());
+        weights.forEach((term, weight) -> {
+            Map<Long, Integer> books = termBooks.get(term);
+            if (books == null) {
+                books = new HashMap<>();
+                termBooks.put(term, books);
+                for (String variant : deletesOf(term, MAX_DISTANCE)) {
+                    deletes.computeIfAbsent(variant, v -> new HashSet<>()).add(term);
+                }
+            }
+            books.put(book.getId(), weight);
+        });
+    }
+
+    private void unlink(Long id) {
+        Set<String> terms = bookTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> books = termBooks.get(term);
+            if (books == null) {
+                continue;
+            }
+            books.remove(id);
+            if (books.isEmpty()) {
+                termBooks.remove(term);
+                for (String variant : deletesOf(term, MAX_DISTANCE)) {
+                    Set<String> owners = deletes.get(variant);
+                    if (owners != null) {
+                        owners.remove(term);
+                        if (owners.isEmpty()) {
+                            deletes.remove(variant);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> deletesOf(String term, int maxDistance) {
+        String prefix = term.length() > PREFIX_LENGTH ? term.substring(0, PREFIX_LENGTH) : term;
+        Set<String> variants = new HashSet<>();
+        variants.add(prefix);
+        Set<String> frontier = Set.of(prefix);
+        for (int d = 0; d < maxDistance; d++) {
+            Set<String> next = new HashSet<>();
+            for (String s : frontier) {
+                if (s.length() <= 1) {
+                    continue;
+                }
+                for (int i = 0; i < s.length(); i++) {
+                    String variant = s.substring(0, i) + s.substring(i + 1);
+                    if (variants.add(variant)) {
+                        next.add(variant);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return variants;
+    }
+
+    private static int allowedDistance(String word) {
+        if (word.length() <= 3) {
+            return 0;
+        }
+        return word.length() <= 6 ? 1 : MAX_DISTANCE;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions),
+     * abandoning early once it exceeds max
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, d[i][j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (token.length() >= 2) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,299 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.BookImportResult;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams a CSV or JSON-lines catalog feed into the books table in chunks.
+ * Each chunk is deduplicated with one ISBN lookup and written with a JDBC batch
+ * in its own transaction, so memory use depends on the chunk size, not the file.
+ */
+@Service
+public class BookImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookImportService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO books " +
+            "(title, author, isbn, category, available_copies, total_copies, cover_image_url, price) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public enum Format {
+        CSV, JSONL
+    }
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${library.import.chunk-size:1000}")
+    private int chunkSize;
+
+    private final AtomicReference<BookImportResult> running = new AtomicReference<>();
+
+    private record Row(long line, Book book) {}
+
+    public BookImportResult importBooks(InputStream input, Format format) throws IOException {
+        BookImportResult result = new BookImportResult();
+        if (!running.compareAndSet(null, result)) {
+            throw new IllegalStateException("Another import is already running");
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            String[] header = null;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvLine(line).toArray(new String[0]);
+                    continue;
+                }
+                result.addProcessed(1);
+                try {
+                    Book book = format == Format.CSV ? fromCsv(header, parseCsvLine(line)) : objectMapper.readValue(line, Book.class);
+                    String error = validate(book);
+                    if (error != null) {
+                        result.addError(lineNumber, book.getIsbn(), error);
+                        continue;
+                    }
+                    chunk.add(new Row(lineNumber, book));
+                } catch (IOException | RuntimeException e) {
+                    result.addError(lineNumber, null, "Unreadable row: " + e.getMessage());
+                    continue;
+                }
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, result);
+            }
+            logger.info("Book import finished: {} rows processed, {} imported, {} failed",
+                    result.getProcessed(), result.getImported(), result.getFailed());
+            return result;
+        } finally {
+            running.set(null);
+        }
+    }
+
+    /**
+     * Counters of the import currently running, if any
+     */
+    public Map<String, Object> progress() {
+        BookImportResult current = running.get();
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("running", current != null);
+        if (current != null) {
+            progress.put("processed", current.getProcessed());
+            progress.put("imported", current.getImported());
+            progress.put("failed", current.getFailed());
+        }
+        return progress;
+    }
+
+    private void writeChunk(List<Row> chunk, BookImportResult result) {
+        // Drop ISBNs repeated inside the chunk, then those already in the catalog
+        Map<String, Row> unique = new LinkedHashMap<>();
+        for (Row row : chunk) {
+            if (unique.putIfAbsent(row.book().getIsbn(), row) != null) {
+                result.addError(row.line(), row.book().getIsbn(), "Duplicate ISBN in import");
+            }
+        }
+        Set<String> existing = new HashSet<>(bookRepository.findExistingIsbns(unique.keySet()));
+        List<Book> toInsert = new ArrayList<>(unique.size());
+        for (Row row : unique.values()) {
+            if (existing.contains(row.book().getIsbn())) {
+                result.addError(row.line(), row.book().getIsbn(), "ISBN already exists");
+            } else {
+                toInsert.add(row.book());
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        List<Book> inserted = toInsert;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, toInsert, toInsert.size(), BookImportService::bind);
+                publishInserted(toInsert);
+            });
+        } catch (DataAccessException e) {
+            // The batch was rolled back, usually over a concurrent insert of the same ISBN;
+            // retry row by row so only the offending rows are rejected
+            logger.warn("Book import batch rejected ({}), inserting its {} rows one by one",
+                    e.getMostSpecificCause().getMessage(), toInsert.size());
+            inserted = insertRowByRow(unique, toInsert, result);
+            if (inserted.isEmpty()) {
+                return;
+            }
+        }
+
+        result.addImported(inserted.size());
+        bookService.registerImported(bookRepository.findByIsbnIn(inserted.stream().map(Book::getIsbn).toList()));
+        logger.info("Book import progress: {} rows processed, {} imported, {} failed",
+                result.getProcessed(), result.getImported(), result.getFailed());
+    }
+
+    private List<Book> insertRowByRow(Map<String, Row> rows, List<Book> books, BookImportResult result) {
+        List<Book> inserted = new ArrayList<>(books.size());
+        for (Book book : books) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, book));
+                    publishInserted(List.of(book));
+                });
+                inserted.add(book);
+            } catch (DataAccessException e) {
+                result.addError(rows.get(book.getIsbn()).line(), book.getIsbn(),
+                        "Row rejected: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+        return inserted;
+    }
+
+    private void publishInserted(List<Book> books) {
+        long copies = 0;
+        long available = 0;
+        for (Book book : books) {
+            copies += book.getTotalCopies();
+            available += book.getAvailableCopies();
+        }
+        eventPublisher.publishEvent(new LibraryEvents.CatalogChanged(books.size(), copies, available));
+    }
+
+    private static void bind(PreparedStatement ps, Book book) throws SQLException {
+        ps.setString(1, book.getTitle());
+        ps.setString(2, book.getAuthor());
+        ps.setString(3, book.getIsbn());
+        ps.setString(4, book.getCategory());
+        ps.setInt(5, book.getAvailableCopies());
+        ps.setInt(6, book.getTotalCopies());
+        ps.setString(7, book.getCoverImageUrl());
+        if (book.getPrice() == null) {
+            ps.setNull(8, Types.DOUBLE);
+        } else {
+            ps.setDouble(8, book.getPrice());
+        }
+    }
+
+    private String validate(Book book) {
+        if (book.getTotalCopies() != null && book.getAvailableCopies() == null) {
+            book.setAvailableCopies(book.getTotalCopies());
+        }
+        Set<ConstraintViolation<Book>> violations = validator.validate(book);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (book.getAvailableCopies() > book.getTotalCopies()) {
+            return "Available copies cannot exceed total copies";
+        }
+        return null;
+    }
+
+    private static Book fromCsv(String[] header, List<String> values) {
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.length && i < values.size(); i++) {
+            String value = values.get(i).trim();
+            fields.put(header[i].trim().toLowerCase(Locale.ROOT), value.isEmpty() ? null : value);
+        }
+        Book book = new Book();
+        book.setTitle(fields.get("title"));
+        book.setAuthor(fields.get("author"));
+        book.setIsbn(fields.get("isbn"));
+        book.setCategory(fields.get("category"));
+        book.setTotalCopies(toInteger(fields.get("totalcopies")));
+        book.setAvailableCopies(toInteger(fields.get("availablecopies")));
+        book.setCoverImageUrl(fields.get("coverimageurl"));
+        String price = fields.get("price");
+        book.setPrice(price == null ? null : Double.valueOf(price));
+        return book;
+    }
+
+    private static Integer toInteger(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    /**
+     * Split one CSV record, honouring double-quoted fields and doubled quotes
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
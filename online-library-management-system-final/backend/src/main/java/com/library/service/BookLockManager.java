@@ -0,0 +1,168 @@
+package com.library.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed pool of fair locks that book ids hash onto. Operations on the same book run
+ * one at a time in arrival order, different books almost always land on different
+ * stripes, and memory stays bounded no matter how many books are touched.
+ */
+@Component
+public class BookLockManager {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.locks.stripes:256}")
+    private int requestedStripes;
+
+    @Value("${library.locks.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    private ReentrantLock[] locks;
+    private Stripe[] stripes;
+    private int mask;
+    private Timer waitTimer;
+    private Counter contendedCounter;
+
+    private static final class Stripe {
+        final LongAdder acquisitions = new LongAdder();
+        final LongAdder contended = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+    }
+
+    @PostConstruct
+    public void init() {
+        int count = Integer.highestOneBit(Math.max(1, requestedStripes - 1) << 1);
+        locks = new ReentrantLock[count];
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            locks[i] = new ReentrantLock(true);
+            stripes[i] = new Stripe();
+        }
+        mask = count - 1;
+        waitTimer = Timer.builder("library.book.lock.wait")
+                .description("Time spent waiting for a per-book lock")
+                .register(meterRegistry);
+        contendedCounter = Counter.builder("library.book.lock.contended")
+                .description("Lock acquisitions that had to wait for another holder")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the action while holding the stripe lock for the given book
+     */
+    public <T> T withLock(Long bookId, Supplier<T> action) {
+        int index = stripeOf(bookId);
+        acquire(index);
+        try {
+            return action.get();
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    /**
+     * Run the action while holding the stripe locks of all the given books. Stripes are
+     * always taken in ascending order so two overlapping batches cannot deadlock.
+     */
+    public <T> T withLocks(Collection<Long> bookIds, Supplier<T> action) {
+        int[] indexes = bookIds.stream().mapToInt(this::stripeOf).distinct().sorted().toArray();
+        int held = 0;
+        try {
+            for (int index : indexes) {
+                acquire(index);
+                held++;
+            }
+            return action.get();
+        } finally {
+            for (int i = held - 1; i >= 0; i--) {
+                locks[indexes[i]].unlock();
+            }
+        }
+    }
+
+    public int stripeOf(Long bookId) {
+        long h = bookId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    public Map<String, Object> stats() {
+        long acquisitions = 0;
+        long contended = 0;
+        long waitNanos = 0;
+        List<Map<String, Object>> busiest = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+            acquisitions += stripe.acquisitions.sum();
+            contended += stripe.contended.sum();
+            waitNanos += stripe.waitNanos.sum();
+            if (stripe.contended.sum() > 0) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("stripe", i);
+                entry.put("acquisitions", stripe.acquisitions.sum());
+                entry.put("contended", stripe.contended.sum());
+                entry.put("totalWaitMs", TimeUnit.NANOSECONDS.toMillis(stripe.waitNanos.sum()));
+                entry.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(stripe.maxWaitNanos.get()));
+                entry.put("queued", locks[i].getQueueLength());
+                busiest.add(entry);
+            }
+        }
+        busiest.sort(Comparator.comparingLong((Map<String, Object> e) -> (Long) e.get("contended")).reversed());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stripes", stripes.length);
+        stats.put("acquisitions", acquisitions);
+        stats.put("contended", contended);
+        stats.put("contentionRate", acquisitions == 0 ? 0.0 : (double) contended / acquisitions);
+        stats.put("totalWaitMs", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        stats.put("contendedStripes", busiest);
+        return stats;
+    }
+
+    private void acquire(int index) {
+        ReentrantLock lock = locks[index];
+        Stripe stripe = stripes[index];
+        stripe.acquisitions.increment();
+        // Fair locks ignore waiters on tryLock(), so only take the fast path when nobody is queued
+        if (!lock.hasQueuedThreads() && lock.tryLock()) {
+            return;
+        }
+        stripe.contended.increment();
+        contendedCounter.increment();
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for book lock");
+        }
+        long waited = System.nanoTime() - start;
+        stripe.waitNanos.add(waited);
+        stripe.maxWaitNanos.accumulate(waited);
+        waitTimer.record(waited, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            throw new RuntimeException("Book is busy, please try again");
+        }
+    }
+}
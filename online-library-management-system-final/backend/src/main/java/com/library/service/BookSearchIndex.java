@@ -0,0 +1,204 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index over book title, author and category.
+ * Answers the same case-insensitive substring queries as BookRepository.searchBooks
+ * without touching the database. Keeps its own copies of the books and hands out
+ * copies, so neither the books it was given nor those it returns share its state.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    private final Map<Long, Book> books = new HashMap<>();
+    private final Map<Long, Set<String>> gramsByBook = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    /**
+     * Replace the whole index with the given books
+     */
+    public void rebuild(Collection<Book> all) {
+        lock.writeLock().lock();
+        try {
+            books.clear();
+            gramsByBook.clear();
+            postings.clear();
+            for (Book book : all) {
+                add(book);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a single book
+     */
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            unlink(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            unlink(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Book get(Long id) {
+        lock.readLock().lock();
+        try {
+            Book book = books.get(id);
+            return book == null ? null : BookCache.copyOf(book);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return books.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case-insensitive substring match on title, author or category, ordered by id
+     */
+    public List<Book> search(String keyword) {
+        String needle = keyword == null ? "" : keyword.toLowerCase(Locale.ROOT);
+        List<Book> results = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            if (needle.length() < GRAM_SIZE) {
+                // Too short to use the index, scan the in-memory documents instead
+                for (Book book : books.values()) {
+                    if (matches(book, needle)) {
+                        results.add(BookCache.copyOf(book));
+                    }
+                }
+            } else {
+                for (Long id : candidates(needle)) {
+                    Book book = books.get(id);
+                    if (book != null && matches(book, needle)) {
+                        results.add(BookCache.copyOf(book));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        results.sort(Comparator.comparing(Book::getId));
+        return results;
+    }
+
+    private Set<Long> candidates(String needle) {
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        // Intersect starting from the rarest gram
+        Set<Long> result = new HashSet<>();
+        for (Long id : lists.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++) {
+                inAll = lists.get(i).contains(id);
+            }
+            if (inAll) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private void add(Book book) {
+        Set<String> grams = new HashSet<>();
+        grams.addAll(grams(normalize(book.getTitle())));
+        grams.addAll(grams(normalize(book.getAuthor())));
+        grams.addAll(grams(normalize(book.getCategory())));
+
+        books.put(book.getId(), BookCache.copyOf(book));
+        gramsByBook.put(book.getId(), grams);
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(book.getId());
+        }
+    }
+
+    private void unlink(Long id) {
+        books.remove(id);
+        Set<String> grams = gramsByBook.remove(id);
+        if (grams == null) {
+            return;
+        }
+        for (String gram : grams) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static boolean matches(Book book, String needle) {
+        return normalize(book.getTitle()).contains(needle)
+                || normalize(book.getAuthor()).contains(needle)
+                || normalize(book.getCategory()).contains(needle);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
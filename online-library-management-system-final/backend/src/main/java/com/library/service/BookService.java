@@ -1,12 +1,49 @@
 package com.library.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.BookBorrowCount;
+import com.library.dto.BookListing;
+import com.library.dto.BookPage;
+import com.library.dto.BookSuggestion;
+import com.library.dto.CategoryFacet;
+import com.library.dto.FacetedSearchResponse;
 import com.library.entity.Book;
 import com.library.repository.BookRepository;
+import com.library.repository.ReservationRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookService {
@@ -14,18 +51,118 @@ public class BookService {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ReservationQueues reservationQueues;
+
+    @Autowired
+    private BookSearchIndex searchIndex;
+
+    @Autowired
+    private BookSuggestIndex suggestIndex;
+
+    @Autowired
+    private BookFuzzyIndex fuzzyIndex;
+
+    @Autowired
+    private BorrowPopularity borrowPopularity;
+
+    @Autowired
+    private CategoryFacets categoryFacets;
+
+    @Autowired
+    private AvailabilityBitmap availabilityBitmap;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_RANKED_RESULTS = 50;
+    public static final Set<String> SORT_PROPERTIES = Set.of("id", "title", "author", "category");
+
+    /**
+     * Build the in-memory indexes from the database. A book written meanwhile may be
+     * missing from the rows read while its own index update is wiped by the rebuild, so
+     * the build repeats until the catalog version, which writers bump before touching the
+     * indexes, stayed the same throughout.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        long version;
+        do {
+            version = catalogVersion.current();
+            List<Book> all = bookRepository.findAll();
+            Map<Long, Integer> held = new HashMap<>();
+            for (Object[] row : reservationRepository.countHoldsByBook()) {
+                held.put((Long) row[0], ((Long) row[1]).intValue());
+            }
+            searchIndex.rebuild(all);
+            suggestIndex.rebuild(all);
+            fuzzyIndex.rebuild(all);
+            categoryFacets.rebuild(all, held);
+            availabilityBitmap.rebuild(all, held);
+        } while (catalogVersion.current() != version);
+    }
+
     public Book create(Book book) {
-        if (bookRepository.existsByIsbn(book.getIsbn())) {
+        if (bookCache.getByIsbn(book.getIsbn()).isPresent()) {
             throw new RuntimeException("ISBN already exists");
         }
         if (book.getAvailableCopies() == null) {
             book.setAvailableCopies(book.getTotalCopies());
         }
-        return bookRepository.save(book);
+        Book saved = transactionTemplate.execute(status -> {
+            Book inserted = bookRepository.save(book);
+            eventPublisher.publishEvent(new LibraryEvents.CatalogChanged(1, inserted.getTotalCopies(), inserted.getAvailableCopies()));
+            return inserted;
+        });
+        bookCache.put(saved);
+        catalogVersion.bump();
+        searchIndex.index(saved);
+        suggestIndex.index(saved);
+        fuzzyIndex.index(saved);
+        categoryFacets.apply(saved, 0);
+        availabilityBitmap.apply(saved, 0);
+        return saved;
+    }
+
+    /**
+     * Bring the in-memory indexes up to date with books inserted outside JPA. The import
+     * publishes its CatalogChanged event in the inserting transaction.
+     */
+    public void registerImported(List<Book> imported) {
+        catalogVersion.bump();
+        for (Book book : imported) {
+            searchIndex.index(book);
+            suggestIndex.index(book);
+            fuzzyIndex.index(book);
+            categoryFacets.apply(book, 0);
+            availabilityBitmap.apply(book, 0);
+            bookCache.put(book);
+        }
     }
 
     public Book update(Long id, Book updated) {
-        return bookRepository.findById(id).map(b -> {
+        Book saved = transactionTemplate.execute(status -> bookRepository.findById(id).map(b -> {
+            int previousTotal = b.getTotalCopies();
+            int previousAvailable = b.getAvailableCopies();
             b.setTitle(updated.getTitle());
             b.setAuthor(updated.getAuthor());
             b.setIsbn(updated.getIsbn());
@@ -34,46 +171,396 @@ public class BookService {
             // Ensure availableCopies is not greater than totalCopies
             int available = updated.getAvailableCopies() != null ? updated.getAvailableCopies() : b.getAvailableCopies();
             b.setAvailableCopies(Math.min(available, updated.getTotalCopies()));
-            return bookRepository.save(b);
-        }).orElseThrow(() -> new RuntimeException("Book not found"));
+            Book written = bookRepository.save(b);
+            eventPublisher.publishEvent(new LibraryEvents.CatalogChanged(0,
+                    written.getTotalCopies() - previousTotal, written.getAvailableCopies() - previousAvailable));
+            return written;
+        }).orElseThrow(() -> new RuntimeException("Book not found")));
+        bookCache.put(saved);
+        catalogVersion.bump();
+        searchIndex.index(saved);
+        suggestIndex.index(saved);
+        fuzzyIndex.index(saved);
+        int held = reservationQueues.readyCount(id);
+        categoryFacets.apply(saved, held);
+        availabilityBitmap.apply(saved, held);
+        return saved;
     }
 
     public void delete(Long id) {
-        bookRepository.deleteById(id);
+        Optional<Book> existing = bookCache.getById(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            bookRepository.deleteById(id);
+            existing.ifPresent(book -> eventPublisher.publishEvent(
+                    new LibraryEvents.CatalogChanged(-1, -book.getTotalCopies(), -book.getAvailableCopies())));
+        });
+        bookCache.evict(id);
+        catalogVersion.bump();
+        searchIndex.remove(id);
+        suggestIndex.remove(id);
+        fuzzyIndex.remove(id);
+        categoryFacets.remove(id);
+        availabilityBitmap.remove(id);
+        borrowPopularity.remove(id);
     }
 
     public Optional<Book> getById(Long id) {
-        return bookRepository.findById(id);
+        return bookCache.getById(id);
+    }
+
+    /**
+     * Copies of the requested books keyed by id, served from the book cache
+     */
+    public Map<Long, Book> getByIds(Collection<Long> ids) {
+        return bookCache.getAllById(ids);
+    }
+
+    /**
+     * Count a committed borrow in the rankings and move the book up the suggestions
+     */
+    public void recordBorrow(Long bookId) {
+        borrowPopularity.recordBorrow(bookId);
+        suggestIndex.borrowed(bookId);
+    }
+
+    /**
+     * Most borrowed books over a window of "all" or "<n>d" (up to 30 days), from the
+     * in-memory rankings. Day windows report how far each count may overestimate.
+     */
+    public List<BookBorrowCount> mostBorrowed(String window, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_RANKED_RESULTS));
+        int days = windowDays(window);
+        Map<Long, SpaceSaving.Estimate> ranking = new LinkedHashMap<>();
+        if (days == 0) {
+            borrowPopularity.topAllTime(limit).forEach((id, count) -> ranking.put(id, new SpaceSaving.Estimate(count, 0)));
+        } else {
+            ranking.putAll(borrowPopularity.topSince(days, limit));
+        }
+        Map<Long, Book> books = getByIds(ranking.keySet());
+        return ranking.entrySet().stream()
+                .filter(e -> books.containsKey(e.getKey()))
+                .map(e -> new BookBorrowCount(e.getKey(), books.get(e.getKey()).getTitle(),
+                        e.getValue().count(), e.getValue().error()))
+                .toList();
+    }
+
+    /**
+     * Days covered by a ranking window, 0 for "all"
+     *
+     * @throws IllegalArgumentException for anything but "all" or "1d" to "30d"
+     */
+    public static int windowDays(String window) {
+        if ("all".equalsIgnoreCase(window)) {
+            return 0;
+        }
+        if (window != null && window.matches("\\d{1,2}d")) {
+            int days = Integer.parseInt(window.substring(0, window.length() - 1));
+            if (days >= 1 && days <= BorrowPopularity.MAX_WINDOW_DAYS) {
+                return days;
+            }
+        }
+        throw new IllegalArgumentException("Window must be 'all' or a number of days from 1d to "
+                + BorrowPopularity.MAX_WINDOW_DAYS + "d");
+    }
+
+    /**
+     * Strong entity tag for a catalog resource, changes whenever any book changes
+     */
+    public String catalogEtag(String resource) {
+        return "\"" + resource + "-" + catalogVersion.current() + "\"";
+    }
+
+    public Map<String, Object> cacheStats() {
+        return bookCache.stats();
     }
 
     public List<Book> getAll() {
         return bookRepository.findAll();
     }
 
+    /**
+     * Keyset (seek) pagination: the cursor carries the sort key and id of the last book
+     * on the previous page, so every page costs the same no matter how deep it is.
+     */
+    public BookPage page(String cursor, int size, String sortBy, Sort.Direction direction) {
+        if (!SORT_PROPERTIES.contains(sortBy)) {
+            throw new IllegalArgumentException("Unsupported sort property: " + sortBy);
+        }
+        Sort sort = Sort.by(direction, sortBy);
+        if (!"id".equals(sortBy)) {
+            sort = sort.and(Sort.by(direction, "id"));
+        }
+        ScrollPosition position = cursor == null || cursor.isBlank()
+                ? ScrollPosition.keyset()
+                : decodeCursor(cursor, sortBy);
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        Window<Book> window = bookRepository.findAllBy(position, sort, Limit.of(limit));
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            nextCursor = encodeCursor((KeysetScrollPosition) window.positionAt(window.size() - 1));
+        }
+        return new BookPage(window.getContent(), nextCursor, window.hasNext());
+    }
+
+    /**
+     * Hand every book to the consumer in id order, reading through a forward-only cursor.
+     * Each book is detached once consumed so the persistence context does not grow.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                entityManager.detach(book);
+            });
+        }
+    }
+
+    /**
+     * Substring search, optionally restricted to books with a copy on the shelf
+     */
+    public List<Book> search(String keyword, boolean availableOnly) {
+        List<Book> hits = search(keyword);
+        if (!availableOnly) {
+            return hits;
+        }
+        if (!searchIndex.isReady()) {
+            return hits.stream().filter(b -> freeCopies(b) > 0).toList();
+        }
+        return hits.stream().filter(b -> availabilityBitmap.contains(b.getId())).toList();
+    }
+
+    /**
+     * Books with a copy on the shelf, optionally in one category, answered from the
+     * availability and category bitmaps
+     */
+    public List<Book> available(String category) {
+        List<Long> ids = category == null || category.isBlank()
+                ? availabilityBitmap.ids()
+                : categoryFacets.withMembers(category, availabilityBitmap::and);
+        return ids.stream().map(searchIndex::get).filter(Objects::nonNull).toList();
+    }
+
     public List<Book> search(String keyword) {
-        return bookRepository.searchBooks(keyword);
+        if (!searchIndex.isReady()) {
+            return bookRepository.searchBooks(keyword);
+        }
+        return searchIndex.search(keyword);
+    }
+
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Typo-tolerant search ranked by field weight and closeness of each matched word,
+     * with a logarithmic boost for frequently borrowed books
+     */
+    public List<Book> rankedSearch(String query, boolean availableOnly) {
+        Map<Long, Double> scores = fuzzyIndex.score(query);
+        if (availableOnly) {
+            scores.keySet().removeIf(id -> !availabilityBitmap.contains(id));
+        }
+        scores.replaceAll((id, score) -> score + Math.log1p(borrowPopularity.count(id)));
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_RANKED_RESULTS)
+                .map(e -> searchIndex.get(e.getKey()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public Book updateCover(Book book, String coverImageUrl) {
+        book.setCoverImageUrl(coverImageUrl);
+        Book saved = bookRepository.save(book);
+        bookCache.put(saved);
+        catalogVersion.bump();
+        searchIndex.index(saved);
+        return saved;
+    }
+
+    /**
+     * One page of search hits restricted to an optional category, with category facets
+     * computed over all hits. A blank keyword browses the whole catalog. Hits come in id
+     * order and {@code after} is the last id of the previous page.
+     */
+    public FacetedSearchResponse facetedSearch(String keyword, String category, boolean availableOnly,
+                                               Long after, int size) {
+        boolean browse = keyword == null || keyword.isBlank();
+        List<Book> hits = search(browse ? "" : keyword, availableOnly);
+        List<CategoryFacet> facets = browse && !availableOnly && categoryFacets.isReady()
+                ? categoryFacets.facets()
+                : categoryFacets.facetsOf(hits);
+        boolean anyCategory = category == null || category.isBlank();
+        long from = after == null ? Long.MIN_VALUE : after;
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        List<BookListing> page = hits.stream()
+                .filter(b -> b.getId() > from)
+                .filter(b -> anyCategory || category.equals(b.getCategory()))
+                .limit(limit + 1L)
+                .map(BookListing::of)
+                .collect(Collectors.toCollection(ArrayList::new));
+        boolean hasMore = page.size() > limit;
+        if (hasMore) {
+            page.remove(limit);
+        }
+        Long nextAfter = hasMore ? page.get(page.size() - 1).getId() : null;
+        return new FacetedSearchResponse(page, facets, nextAfter, hasMore);
+    }
+
+    public List<CategoryFacet> facets() {
+        return categoryFacets.facets();
     }
 
     public List<String> categories() {
-        return bookRepository.findAllCategories();
+        if (!categoryFacets.isReady()) {
+            return bookRepository.findAllCategories();
+        }
+        return categoryFacets.categories();
+    }
+
+    /**
+     * Free copies of each book as stored in the database, bypassing the cache. Callers
+     * hold the books' locks, so the counts stay current while they act on them.
+     */
+    public Map<Long, Integer> currentAvailability(Collection<Long> ids) {
+        Map<Long, Integer> available = new HashMap<>();
+        for (Object[] row : bookRepository.findAvailableCopiesIn(ids)) {
+            available.put((Long) row[0], (Integer) row[1]);
+        }
+        return available;
     }
 
     public boolean isAvailable(Book book) {
         return book.getAvailableCopies() != null && book.getAvailableCopies() > 0;
     }
 
+    /**
+     * Copies on the shelf that are not held for someone's pickup
+     */
+    public int freeCopies(Book book) {
+        int available = book.getAvailableCopies() == null ? 0 : book.getAvailableCopies();
+        return Math.max(0, available - reservationQueues.readyCount(book.getId()));
+    }
+
+    /**
+     * Bring the availability views of a book up to date after copies of it were put on or
+     * released from hold. Called once the reservation change committed.
+     */
+    public void holdsChanged(Long bookId) {
+        bookCache.getById(bookId).ifPresent(book -> {
+            catalogVersion.bump();
+            int held = reservationQueues.readyCount(bookId);
+            categoryFacets.apply(book, held);
+            availabilityBitmap.apply(book, held);
+        });
+    }
+
+    /**
+     * Take one copy off the shelf with a single conditional UPDATE, so two concurrent
+     * borrowers can never both get the last copy
+     */
+    @Transactional
     public void decrementAvailability(Book book) {
-        if (!isAvailable(book)) {
+        if (bookRepository.decrementAvailableCopies(book.getId()) == 0) {
             throw new RuntimeException("No available copies");
         }
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepository.save(book);
+        refreshAvailability(List.of(book));
+    }
+
+    /**
+     * Take one copy of each book off the shelf in one statement. The rows that still have
+     * a copy are locked first, so the update cannot miss any of them; returns the ids of
+     * the books that had none left, which are not changed.
+     */
+    @Transactional
+    public Set<Long> decrementAvailability(Collection<Book> books) {
+        Set<Long> available = new HashSet<>(bookRepository.lockIdsWithAvailableCopies(
+                books.stream().map(Book::getId).toList()));
+        List<Book> taken = books.stream().filter(book -> available.contains(book.getId())).toList();
+        if (!taken.isEmpty()) {
+            if (bookRepository.decrementAvailableCopiesIn(available) != available.size()) {
+                throw new RuntimeException("No available copies");
+            }
+            refreshAvailability(taken);
+        }
+        return books.stream().map(Book::getId).filter(id -> !available.contains(id)).collect(Collectors.toSet());
     }
 
+    /**
+     * Put one copy back, never exceeding the total number of copies
+     */
+    @Transactional
     public void incrementAvailability(Book book) {
-        if (book.getAvailableCopies() < book.getTotalCopies()) {
-            book.setAvailableCopies(book.getAvailableCopies() + 1);
-            bookRepository.save(book);
+        if (bookRepository.incrementAvailableCopies(book.getId()) > 0) {
+            refreshAvailability(List.of(book));
+        }
+    }
+
+    @Transactional
+    public void incrementAvailability(Collection<Book> books) {
+        List<Long> ids = books.stream().map(Book::getId).toList();
+        if (bookRepository.incrementAvailableCopiesIn(ids) > 0) {
+            refreshAvailability(books);
+        }
+    }
+
+    /**
+     * Read back the counts written by this transaction and publish them to the cache and
+     * indexes once the transaction commits, so a rollback leaves them untouched
+     */
+    private void refreshAvailability(Collection<Book> books) {
+        Map<Long, Book> byId = new HashMap<>();
+        books.forEach(book -> byId.put(book.getId(), book));
+        for (Object[] row : bookRepository.findAvailableCopiesIn(byId.keySet())) {
+            byId.get((Long) row[0]).setAvailableCopies((Integer) row[1]);
+        }
+        Runnable publish = () -> {
+            catalogVersion.bump();
+            for (Book book : books) {
+                bookCache.put(book);
+                searchIndex.index(book);
+                int held = reservationQueues.readyCount(book.getId());
+                categoryFacets.apply(book, held);
+                availabilityBitmap.apply(book, held);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
+    private String encodeCursor(KeysetScrollPosition position) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(position.getKeys());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not encode cursor", e);
+        }
+    }
+
+    private ScrollPosition decodeCursor(String cursor, String sortBy) {
+        Map<String, Object> keys;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor);
+            keys = objectMapper.readValue(new String(json, StandardCharsets.UTF_8), new TypeReference<Map<String, Object>>() {});
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!(keys.get("id") instanceof Number id) || !keys.containsKey(sortBy)) {
+            throw new IllegalArgumentException("Cursor does not match sort " + sortBy);
         }
+        Map<String, Object> typed = new HashMap<>(keys);
+        typed.put("id", id.longValue());
+        return ScrollPosition.forward(typed);
     }
 }
@@ -0,0 +1,312 @@
+package com.library.service;
+
+import com.library.dto.BookSuggestion;
+import com.library.entity.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sorted term dictionary of normalized titles, authors and their words used for
+ * prefix autocomplete.
+ *
+ * Prefixes of up to {@value #SHORT_PREFIX_LENGTH} characters match too many books to
+ * rank at lookup time, so each keeps its own list of the {@value #MAX_SUGGESTIONS} best
+ * matches. The lists are updated as books are indexed and borrowed. Borrow counts only
+ * grow, so a book that falls off a list can only come back when a listed book is
+ * removed, and then that list is rebuilt from the dictionary. A short-prefix lookup
+ * just reads its list.
+ *
+ * Longer prefixes rank the matches among the all-time most borrowed together with the
+ * first {@value #MAX_SCANNED_BOOKS} books of the prefix range. Their cost is bounded,
+ * but a book that is neither in the top K nor early in the range may be missed.
+ */
+@Component
+public class BookSuggestIndex {
+
+    public static final int MAX_SUGGESTIONS = 20;
+
+    public static final int SHORT_PREFIX_LENGTH = 3;
+
+    // Upper bound on books visited in the prefix range of a longer prefix
+    public static final int MAX_SCANNED_BOOKS = 2000;
+
+    // Most borrowed first, then lowest id, the order BorrowPopularity ranks its top K in
+    private static final Comparator<BookSuggestion> RANKING =
+            Comparator.comparingLong(BookSuggestion::getBorrowCount).reversed().thenComparing(BookSuggestion::getId);
+
+    @Autowired
+    private BorrowPopularity borrowPopularity;
+
+    private final TreeMap<String, Set<Long>> terms = new TreeMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    /** Best matches per short prefix, best first */
+    private final Map<String, List<Long>> shortPrefixTop = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Entry(String title, String author, Set<String> terms) {}
+
+    public void rebuild(Collection<Book> all) {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            entries.clear();
+            shortPrefixTop.clear();
+            for (Book book : all) {
+                add(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            unlink(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            unlink(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Move a book up the short-prefix lists once its borrow count has grown
+     */
+    public void borrowed(Long id) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return;
+            }
+            Comparator<Long> byRank = byRank();
+            for (String prefix : shortPrefixes(entry.terms())) {
+                List<Long> top = shortPrefixTop.computeIfAbsent(prefix, p -> new ArrayList<>(MAX_SUGGESTIONS + 1));
+                if (!top.contains(id)) {
+                    top.add(id);
+                }
+                top.sort(byRank);
+                if (top.size() > MAX_SUGGESTIONS) {
+                    top.remove(MAX_SUGGESTIONS);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top books whose title, author or one of their words starts with the prefix,
+     * most borrowed first
+     */
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        int k = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        // Worst suggestion at the head so it is the one dropped
+        PriorityQueue<BookSuggestion> top = new PriorityQueue<>(k + 1, RANKING.reversed());
+        Set<Long> seen = new HashSet<>();
+
+        lock.readLock().lock();
+        try {
+            if (key.length() <= SHORT_PREFIX_LENGTH) {
+                List<BookSuggestion> results = new ArrayList<>();
+                for (Long id : shortPrefixTop.getOrDefault(key, List.of())) {
+                    Entry entry = entries.get(id);
+                    results.add(new BookSuggestion(id, entry.title(), entry.author(), borrowPopularity.count(id)));
+                }
+                // Counts may have grown since the list was last sorted
+                results.sort(RANKING);
+                return results.size() > k ? results.subList(0, k) : results;
+            }
+
+            // The whole all-time top K, whatever its size, then the start of the prefix range
+            for (Map.Entry<Long, Long> ranked : borrowPopularity.topAllTime(Integer.MAX_VALUE).entrySet()) {
+                Entry entry = entries.get(ranked.getKey());
+                if (entry != null && matches(entry, key)) {
+                    seen.add(ranked.getKey());
+                    offer(top, k, new BookSuggestion(ranked.getKey(), entry.title(), entry.author(), ranked.getValue()));
+                }
+            }
+
+            NavigableMap<String, Set<Long>> range = terms.subMap(key, true, key + Character.MAX_VALUE, true);
+            int scanned = 0;
+            for (Set<Long> ids : range.values()) {
+                if (scanned >= MAX_SCANNED_BOOKS) {
+                    break;
+                }
+                for (Long id : ids) {
+                    if (scanned++ >= MAX_SCANNED_BOOKS) {
+                        break;
+                    }
+                    if (seen.add(id)) {
+                        Entry entry = entries.get(id);
+                        offer(top, k, new BookSuggestion(id, entry.title(), entry.author(), borrowPopularity.count(id)));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<BookSuggestion> results = new ArrayList<>(top);
+        results.sort(RANKING);
+        return results;
+    }
+
+    private static void offer(PriorityQueue<BookSuggestion> top, int k, BookSuggestion suggestion) {
+        top.add(suggestion);
+        if (top.size() > k) {
+            top.poll();
+        }
+    }
+
+    private static boolean matches(Entry entry, String prefix) {
+        for (String term : entry.terms()) {
+            if (term.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(Book book) {
+        Set<String> bookTerms = new LinkedHashSet<>();
+        collectTerms(book.getTitle(), bookTerms);
+        collectTerms(book.getAuthor(), bookTerms);
+
+        entries.put(book.getId(), new Entry(book.getTitle(), book.getAuthor(), bookTerms));
+        for (String term : bookTerms) {
+            terms.computeIfAbsent(term, t -> new HashSet<>()).add(book.getId());
+        }
+
+        Comparator<Long> byRank = byRank();
+        for (String prefix : shortPrefixes(bookTerms)) {
+            List<Long> top = shortPrefixTop.computeIfAbsent(prefix, p -> new ArrayList<>(MAX_SUGGESTIONS + 1));
+            if (top.size() == MAX_SUGGESTIONS && byRank.compare(top.get(MAX_SUGGESTIONS - 1), book.getId()) < 0) {
+                continue;
+            }
+            int at = 0;
+            while (at < top.size() && byRank.compare(top.get(at), book.getId()) < 0) {
+                at++;
+            }
+            if (at < MAX_SUGGESTIONS) {
+                top.add(at, book.getId());
+                if (top.size() > MAX_SUGGESTIONS) {
+                    top.remove(MAX_SUGGESTIONS);
+                }
+            }
+        }
+    }
+
+    private void unlink(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String term : entry.terms()) {
+            Set<Long> ids = terms.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    terms.remove(term);
+                }
+            }
+        }
+        for (String prefix : shortPrefixes(entry.terms())) {
+            List<Long> top = shortPrefixTop.get(prefix);
+            if (top != null && top.remove(id)) {
+                refill(prefix);
+            }
+        }
+    }
+
+    /**
+     * Recompute a short prefix's list from every book in its range
+     */
+    private void refill(String prefix) {
+        Comparator<Long> byRank = byRank();
+        PriorityQueue<Long> best = new PriorityQueue<>(MAX_SUGGESTIONS + 1, byRank.reversed());
+        Set<Long> seen = new HashSet<>();
+        for (Set<Long> ids : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            for (Long id : ids) {
+                if (seen.add(id)) {
+                    best.add(id);
+                    if (best.size() > MAX_SUGGESTIONS) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+        if (best.isEmpty()) {
+            shortPrefixTop.remove(prefix);
+            return;
+        }
+        List<Long> top = new ArrayList<>(best);
+        top.sort(byRank);
+        shortPrefixTop.put(prefix, top);
+    }
+
+    private Comparator<Long> byRank() {
+        return Comparator.comparingLong((Long id) -> borrowPopularity.count(id)).reversed()
+                .thenComparing(Comparator.naturalOrder());
+    }
+
+    private static Set<String> shortPrefixes(Set<String> bookTerms) {
+        Set<String> prefixes = new HashSet<>();
+        for (String term : bookTerms) {
+            for (int length = 1; length <= Math.min(SHORT_PREFIX_LENGTH, term.length()); length++) {
+                prefixes.add(term.substring(0, length));
+            }
+        }
+        return prefixes;
+    }
+
+    private static void collectTerms(String text, Set<String> into) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        into.add(normalized);
+        for (String word : normalized.split(" ")) {
+            into.add(word);
+        }
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{Nd}]+", " ").trim();
+    }
+}
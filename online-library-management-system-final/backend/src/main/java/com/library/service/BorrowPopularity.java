@@ -0,0 +1,207 @@
+package com.library.service;
+
+import com.library.repository.BorrowRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * All-time borrow count per book, seeded from borrow_records at startup
+ * and incremented on every borrow.
+ *
+ * Also keeps the most borrowed books: the all-time top K ordered by the exact counts
+ * (counts only grow, so a book outside the top K enters by passing the smallest one),
+ * and one Space-Saving sketch per day for the last {@value #MAX_WINDOW_DAYS} days, merged
+ * on demand for 7- or 30-day rankings. Both use memory bounded by their configured sizes.
+ */
+@Component
+public class BorrowPopularity {
+
+    public static final int MAX_WINDOW_DAYS = 30;
+
+    private static final Comparator<Ranked> RANKING =
+            Comparator.comparingLong(Ranked::count).reversed().thenComparing(Ranked::bookId);
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Value("${library.popularity.top-k:50}")
+    private int topK;
+
+    @Value("${library.popularity.window-capacity:200}")
+    private int windowCapacity;
+
+    private final Map<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+    private record Ranked(Long bookId, long count) {}
+
+    private record Day(LocalDate date, SpaceSaving sketch) {}
+
+    private final TreeSet<Ranked> top = new TreeSet<>(RANKING);
+    private final Map<Long, Ranked> topByBook = new HashMap<>();
+    private final ArrayDeque<Day> days = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Before BookService builds the indexes, whose suggestion lists are ranked by these counts
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void seed() {
+        LocalDate since = LocalDate.now().minusDays(MAX_WINDOW_DAYS - 1);
+        lock.lock();
+        try {
+            counts.clear();
+            for (Object[] row : borrowRecordRepository.countBorrowsByBook()) {
+                counts.computeIfAbsent((Long) row[0], id -> new LongAdder()).add((Long) row[1]);
+            }
+            rebuildTop();
+            days.clear();
+            for (Object[] row : borrowRecordRepository.countBorrowsByDateSince(since)) {
+                dayOf((LocalDate) row[0]).offer((Long) row[1], (Long) row[2]);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordBorrow(Long bookId) {
+        LongAdder count = counts.computeIfAbsent(bookId, id -> new LongAdder());
+        count.increment();
+        lock.lock();
+        try {
+            rank(bookId, count.sum());
+            dayOf(LocalDate.now()).offer(bookId, 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long count(Long bookId) {
+        LongAdder count = counts.get(bookId);
+        return count == null ? 0 : count.sum();
+    }
+
+    public void remove(Long bookId) {
+        counts.remove(bookId);
+        lock.lock();
+        try {
+            if (topByBook.containsKey(bookId)) {
+                // The book that moves up into the top K is only known from the full counts
+                rebuildTop();
+            }
+            days.forEach(day -> day.sketch().remove(bookId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Most borrowed books of all time with their exact counts, at most the configured K
+     */
+    public Map<Long, Long> topAllTime(int limit) {
+        Map<Long, Long> result = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            for (Ranked ranked : top) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.put(ranked.bookId(), ranked.count());
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Most borrowed books over the last given number of days, today included. Each count
+     * overestimates the borrows the daily sketches saw by at most its error, so count minus
+     * error is a lower bound; both are exact while fewer distinct books are borrowed per day
+     * than the sketch capacity.
+     */
+    public Map<Long, SpaceSaving.Estimate> topSince(int daysBack, int limit) {
+        if (daysBack < 1 || daysBack > MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Window must be between 1 and " + MAX_WINDOW_DAYS + " days");
+        }
+        LocalDate from = LocalDate.now().minusDays(daysBack - 1);
+        Map<Long, SpaceSaving.Estimate> merged = new HashMap<>();
+        lock.lock();
+        try {
+            for (Day day : days) {
+                if (!day.date().isBefore(from)) {
+                    day.sketch().estimates().forEach((bookId, estimate) -> merged.merge(bookId, estimate,
+                            (a, b) -> new SpaceSaving.Estimate(a.count() + b.count(), a.error() + b.error())));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        Comparator<Map.Entry<Long, SpaceSaving.Estimate>> byCount =
+                Comparator.comparingLong((Map.Entry<Long, SpaceSaving.Estimate> e) -> e.getValue().count())
+                        .reversed()
+                        .thenComparing(Map.Entry::getKey);
+        Map<Long, SpaceSaving.Estimate> result = new LinkedHashMap<>();
+        merged.entrySet().stream()
+                .sorted(byCount)
+                .limit(limit)
+                .forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    private void rank(Long bookId, long count) {
+        Ranked previous = topByBook.remove(bookId);
+        if (previous != null) {
+            top.remove(previous);
+        }
+        Ranked ranked = new Ranked(bookId, count);
+        if (top.size() < topK || RANKING.compare(ranked, top.last()) < 0) {
+            top.add(ranked);
+            topByBook.put(bookId, ranked);
+            if (top.size() > topK) {
+                topByBook.remove(top.pollLast().bookId());
+            }
+        }
+    }
+
+    private void rebuildTop() {
+        top.clear();
+        topByBook.clear();
+        counts.forEach((bookId, count) -> rank(bookId, count.sum()));
+    }
+
+    /**
+     * Sketch for the given day, starting a new one when the day changes and dropping days
+     * that fell out of the longest window
+     */
+    private SpaceSaving dayOf(LocalDate date) {
+        Day last = days.peekLast();
+        if (last != null && !last.date().isBefore(date)) {
+            for (Day day : days) {
+                if (day.date().equals(date)) {
+                    return day.sketch();
+                }
+            }
+        }
+        Day day = new Day(date, new SpaceSaving(windowCapacity));
+        days.addLast(day);
+        LocalDate oldest = date.minusDays(MAX_WINDOW_DAYS - 1);
+        while (days.peekFirst().date().isBefore(oldest)) {
+            days.pollFirst();
+        }
+        return day.sketch();
+    }
+}
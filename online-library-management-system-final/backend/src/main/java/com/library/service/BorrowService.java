@@ -1,17 +1,28 @@
 package com.library.service;
 
+import com.library.dto.BatchBorrowResponse;
+import com.library.dto.LoanSummary;
 import com.library.entity.Book;
 import com.library.entity.BorrowRecord;
-import com.library.entity.Reservation;
 import com.library.entity.User;
 import com.library.repository.BookRepository;
 import com.library.repository.BorrowRecordRepository;
-import com.library.repository.ReservationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class BorrowService {
@@ -23,61 +34,293 @@ public class BorrowService {
     private BookRepository bookRepository;
 
     @Autowired
-    private ReservationRepository reservationRepository;
+    private BookService bookService;
 
     @Autowired
-    private BookService bookService;
+    private ReservationService reservationService;
+
+    @Autowired
+    private BookLockManager bookLockManager;
+
+    @Autowired
+    private OverdueTracker overdueTracker;
+
+    @Autowired
+    private ActiveLoanCounter activeLoanCounter;
 
+    @Autowired
+    private FineAccrualService fineAccrualService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Borrow a copy. The checks, the availability decrement and the new record run under
+     * the book's stripe lock in one transaction that commits before the lock is released.
+     */
     public BorrowRecord borrowBook(User user, Book book) {
-        if (!bookService.isAvailable(book)) {
+        return bookLockManager.withLock(book.getId(), () -> {
+            BorrowRecord saved = transactionTemplate.execute(status -> doBorrow(user, book));
+            overdueTracker.borrowed(saved.getBorrowDate(), 1);
+            bookService.recordBorrow(book.getId());
+            reservationService.borrowed(book.getId(), user.getId());
+            return saved;
+        });
+    }
+
+    /**
+     * Return a copy under the book's stripe lock. Closing the record is also conditional
+     * on it still being open, so a double-submitted return cannot put a copy back twice.
+     * The returned copy is then held for the next patron in the reservation queue.
+     */
+    public BorrowRecord returnBook(User user, Book book) {
+        return bookLockManager.withLock(book.getId(), () -> {
+            BorrowRecord returned = transactionTemplate.execute(status -> doReturn(user, book));
+            overdueTracker.returned(returned.getBorrowDate(), 1);
+            reservationService.promoteWaiting(book.getId());
+            return returned;
+        });
+    }
+
+    /**
+     * Borrow several books at once, e.g. from a self-service kiosk. All books are locked
+     * in stripe order, books and open loans are looked up with one query each,
+     * reservations come from the in-memory queues, and the copies are taken off the shelf
+     * in a single UPDATE. Books that fail a check are reported individually and do not
+     * stop the rest.
+     */
+    public BatchBorrowResponse borrowBooks(User user, List<Long> bookIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(bookIds));
+        return bookLockManager.withLocks(ids, () -> {
+            BatchBorrowResponse response = transactionTemplate.execute(status -> doBorrowBooks(user, ids));
+            response.getResults().stream()
+                    .filter(BatchBorrowResponse.ItemResult::isSuccess)
+                    .forEach(item -> {
+                        overdueTracker.borrowed(item.getRecord().getBorrowDate(), 1);
+                        bookService.recordBorrow(item.getBookId());
+                        reservationService.borrowed(item.getBookId(), user.getId());
+                    });
+            return response;
+        });
+    }
+
+    /**
+     * Return several books at once with bulk lookups and updates
+     */
+    public BatchBorrowResponse returnBooks(User user, List<Long> bookIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(bookIds));
+        return bookLockManager.withLocks(ids, () -> {
+            BatchBorrowResponse response = transactionTemplate.execute(status -> doReturnBooks(user, ids));
+            response.getResults().stream()
+                    .filter(BatchBorrowResponse.ItemResult::isSuccess)
+                    .forEach(item -> {
+                        overdueTracker.returned(item.getRecord().getBorrowDate(), 1);
+                        reservationService.promoteWaiting(item.getBookId());
+                    });
+            return response;
+        });
+    }
+
+    private BorrowRecord doBorrow(User user, Book book) {
+        // The cached book may be stale; the count that decides the borrow is read under the lock
+        int available = bookService.currentAvailability(List.of(book.getId())).getOrDefault(book.getId(), 0);
+        if (available <= 0) {
             throw new RuntimeException("Book is not available to borrow");
         }
 
         // Check if user already borrowed this book and not returned
-        borrowRecordRepository.findByUserAndBookAndStatus(user, book, BorrowRecord.Status.BORROWED)
+        borrowRecordRepository.findActiveByUserAndBook(user, book)
                 .ifPresent(br -> { throw new RuntimeException("You already borrowed this book"); });
 
-        // If there are reservations for this book, ensure the current user is at top or no reservations
-        List<Reservation> queue = reservationRepository.findByBookAndStatusOrderByReservationDateAsc(book, Reservation.Status.ACTIVE);
-        if (!queue.isEmpty() && !queue.get(0).getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Book is reserved by another user");
+        // The loan slot is counted in memory and given back if this transaction rolls back
+        if (activeLoanCounter.acquire(user, 1) == 0) {
+            throw new RuntimeException(limitMessage(user));
         }
 
-        // If current user had active reservation, mark it fulfilled
-        reservationRepository.findByUserAndBookAndStatus(user, book, Reservation.Status.ACTIVE)
-                .ifPresent(res -> {
-                    res.setStatus(Reservation.Status.FULFILLED);
-                    reservationRepository.save(res);
-                });
+        // Copies held for other patrons' reservations are off limits; the user's own reservation is fulfilled
+        reservationService.claimForBorrow(book.getId(), user.getId(), available)
+                .ifPresent(entry -> reservationService.fulfil(List.of(entry)));
 
         // decrement availability and create record
         bookService.decrementAvailability(book);
 
         BorrowRecord record = new BorrowRecord(user, book, LocalDate.now(), BorrowRecord.Status.BORROWED);
-        return borrowRecordRepository.save(record);
+        BorrowRecord saved = borrowRecordRepository.save(record);
+        eventPublisher.publishEvent(new LibraryEvents.BooksBorrowed(user.getId(), user.getRole(), List.of(book.getCategory())));
+        return saved;
     }
 
-    public BorrowRecord returnBook(User user, Book book) {
+    private BorrowRecord doReturn(User user, Book book) {
         BorrowRecord record = borrowRecordRepository
-                .findByUserAndBookAndStatus(user, book, BorrowRecord.Status.BORROWED)
+                .findActiveByUserAndBook(user, book)
                 .orElseThrow(() -> new RuntimeException("No active borrow record found"));
 
+        // The fine is final at return; the nightly accrual only covers loans still open
+        LocalDate returnDate = LocalDate.now();
+        BigDecimal fine = finalFine(record, returnDate);
+        if (borrowRecordRepository.markReturned(record.getId(), returnDate, fine) == 0) {
+            throw new RuntimeException("No active borrow record found");
+        }
         record.setStatus(BorrowRecord.Status.RETURNED);
-        record.setReturnDate(LocalDate.now());
-        BorrowRecord saved = borrowRecordRepository.save(record);
+        record.setReturnDate(returnDate);
+        record.setFineAmount(fine);
+        activeLoanCounter.releaseOnCommit(user.getId(), 1);
 
         // increment availability
         bookService.incrementAvailability(book);
 
-        return saved;
+        eventPublisher.publishEvent(new LibraryEvents.BooksReturned(user.getId(), user.getRole(), List.of(book.getCategory())));
+        return record;
+    }
+
+    private BatchBorrowResponse doBorrowBooks(User user, List<Long> ids) {
+        Map<Long, Book> books = bookService.getByIds(ids);
+        Map<Long, Integer> available = bookService.currentAvailability(books.keySet());
+        Set<Long> alreadyBorrowed = borrowRecordRepository.findActiveByUserAndBookIds(user, ids).stream()
+                .map(br -> br.getBook().getId())
+                .collect(Collectors.toSet());
+
+        Map<Long, String> failures = new HashMap<>();
+        List<Book> eligible = new ArrayList<>();
+        Map<Long, ReservationQueues.Entry> claims = new HashMap<>();
+        for (Long id : ids) {
+            Book book = books.get(id);
+            if (book == null) {
+                failures.put(id, "Book not found");
+            } else if (available.getOrDefault(id, 0) <= 0) {
+                failures.put(id, "Book is not available to borrow");
+            } else if (alreadyBorrowed.contains(id)) {
+                failures.put(id, "You already borrowed this book");
+            } else {
+                try {
+                    reservationService.claimForBorrow(id, user.getId(), available.get(id))
+                            .ifPresent(entry -> claims.put(id, entry));
+                    eligible.add(book);
+                } catch (RuntimeException e) {
+                    failures.put(id, e.getMessage());
+                }
+            }
+        }
+
+        // Books past the user's borrowing limit fail in request order
+        int granted = eligible.isEmpty() ? 0 : activeLoanCounter.acquire(user, eligible.size());
+        List<Book> toBorrow = eligible.subList(0, granted);
+        for (Book book : eligible.subList(granted, eligible.size())) {
+            failures.put(book.getId(), limitMessage(user));
+        }
+
+        // A book whose last copy went since it was checked fails alone and frees its slot
+        if (!toBorrow.isEmpty()) {
+            Set<Long> unavailable = bookService.decrementAvailability(toBorrow);
+            if (!unavailable.isEmpty()) {
+                unavailable.forEach(id -> failures.put(id, "Book is not available to borrow"));
+                activeLoanCounter.releaseUnused(user, unavailable.size());
+                toBorrow = toBorrow.stream().filter(book -> !unavailable.contains(book.getId())).toList();
+            }
+        }
+        List<ReservationQueues.Entry> claimed = toBorrow.stream()
+                .map(book -> claims.get(book.getId()))
+                .filter(Objects::nonNull)
+                .toList();
+        if (!claimed.isEmpty()) {
+            reservationService.fulfil(claimed);
+        }
+
+        Map<Long, BorrowRecord> saved = new HashMap<>();
+        if (!toBorrow.isEmpty()) {
+            LocalDate today = LocalDate.now();
+            List<BorrowRecord> records = toBorrow.stream()
+                    .map(book -> new BorrowRecord(user, book, today, BorrowRecord.Status.BORROWED))
+                    .toList();
+            for (BorrowRecord record : borrowRecordRepository.saveAll(records)) {
+                saved.put(record.getBook().getId(), record);
+            }
+        }
+
+        BatchBorrowResponse response = new BatchBorrowResponse();
+        for (Long id : ids) {
+            if (saved.containsKey(id)) {
+                response.addSuccess(id, LoanSummary.from(saved.get(id)));
+            } else {
+                response.addFailure(id, failures.get(id));
+            }
+        }
+        if (!saved.isEmpty()) {
+            eventPublisher.publishEvent(new LibraryEvents.BooksBorrowed(user.getId(), user.getRole(), categories(saved.values())));
+        }
+        return response;
+    }
+
+    private BatchBorrowResponse doReturnBooks(User user, List<Long> ids) {
+        Map<Long, BorrowRecord> open = new HashMap<>();
+        for (BorrowRecord record : borrowRecordRepository.findActiveByUserAndBookIds(user, ids)) {
+            open.putIfAbsent(record.getBook().getId(), record);
+        }
+
+        BatchBorrowResponse response = new BatchBorrowResponse();
+        if (!open.isEmpty()) {
+            // Fines depend only on the borrow date, so this is usually a single UPDATE
+            LocalDate returnDate = LocalDate.now();
+            Map<BigDecimal, List<BorrowRecord>> byFine = open.values().stream()
+                    .collect(Collectors.groupingBy(record -> finalFine(record, returnDate)));
+            int closed = 0;
+            for (Map.Entry<BigDecimal, List<BorrowRecord>> group : byFine.entrySet()) {
+                List<Long> recordIds = group.getValue().stream().map(BorrowRecord::getId).toList();
+                closed += borrowRecordRepository.markReturnedIn(recordIds, returnDate, group.getKey());
+                for (BorrowRecord record : group.getValue()) {
+                    record.setStatus(BorrowRecord.Status.RETURNED);
+                    record.setReturnDate(returnDate);
+                    record.setFineAmount(group.getKey());
+                }
+            }
+            if (closed != open.size()) {
+                throw new RuntimeException("Borrow records changed during return, please try again");
+            }
+            activeLoanCounter.releaseOnCommit(user.getId(), closed);
+            bookService.incrementAvailability(bookService.getByIds(open.keySet()).values());
+        }
+
+        for (Long id : ids) {
+            if (open.containsKey(id)) {
+                response.addSuccess(id, LoanSummary.from(open.get(id)));
+            } else {
+                response.addFailure(id, "No active borrow record found");
+            }
+        }
+        if (!open.isEmpty()) {
+            eventPublisher.publishEvent(new LibraryEvents.BooksReturned(user.getId(), user.getRole(), categories(open.values())));
+        }
+        return response;
+    }
+
+    private BigDecimal finalFine(BorrowRecord record, LocalDate returnDate) {
+        return BigDecimal.valueOf(fineAccrualService.fineCents(record.getBorrowDate(), returnDate), 2);
+    }
+
+    private static List<String> categories(Collection<BorrowRecord> records) {
+        return records.stream()
+                .map(record -> record.getBook().getCategory())
+                .toList();
+    }
+
+    private String limitMessage(User user) {
+        return "You have reached your borrowing limit of " + activeLoanCounter.limitFor(user) + " books";
     }
 
-    public List<BorrowRecord> history(User user) {
-        return borrowRecordRepository.findByUserOrderByBorrowDateDesc(user);
+    /**
+     * The user's loans, newest first, with only the book columns the history shows
+     */
+    public List<LoanSummary> history(User user) {
+        return borrowRecordRepository.findLoanSummariesByUserId(user.getId());
     }
 
-    public List<BorrowRecord> overdueRecords() {
-        LocalDate overdueDate = LocalDate.now().minusDays(14);
-        return borrowRecordRepository.findOverdueRecords(overdueDate);
+    /**
+     * Loans already moved to OVERDUE by the fine accrual run
+     */
+    public List<LoanSummary> overdueRecords() {
+        return borrowRecordRepository.findLoanSummariesByStatus(BorrowRecord.Status.OVERDUE);
     }
 }
@@ -0,0 +1,23 @@
+package com.library.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the book catalog, bumped on every book mutation.
+ * Starts from the boot time so versions are not reused across restarts.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    public long bump() {
+        return version.incrementAndGet();
+    }
+}
@@ -0,0 +1,162 @@
+package com.library.service;
+
+import com.library.dto.CategoryFacet;
+import com.library.entity.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Per-category book and available-copy counts, kept current from BookService
+ * mutations so category listings never need a GROUP BY over books. Copies held for
+ * pickup are not counted as available.
+ */
+@Component
+public class CategoryFacets {
+
+    private final Map<Long, Snapshot> books = new HashMap<>();
+    private final TreeMap<String, long[]> counts = new TreeMap<>();
+    private final Map<String, IdBitmap> members = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean ready = false;
+
+    private record Snapshot(String category, int availableCopies) {}
+
+    /**
+     * Replace all counts, given the number of copies of each book held for pickup
+     */
+    public void rebuild(Collection<Book> all, Map<Long, Integer> held) {
+        lock.lock();
+        try {
+            books.clear();
+            counts.clear();
+            members.clear();
+            for (Book book : all) {
+                add(book.getId(), snapshot(book, held.getOrDefault(book.getId(), 0)));
+            }
+            ready = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record the current category and availability of a created or changed book
+     */
+    public void apply(Book book, int held) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            subtract(book.getId());
+            add(book.getId(), snapshot(book, held));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.lock();
+        try {
+            subtract(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<String> categories() {
+        lock.lock();
+        try {
+            return new ArrayList<>(counts.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<CategoryFacet> facets() {
+        lock.lock();
+        try {
+            List<CategoryFacet> facets = new ArrayList<>(counts.size());
+            counts.forEach((category, c) -> facets.add(new CategoryFacet(category, c[0], c[1])));
+            return facets;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run a function over the ids in a category while the membership cannot change,
+     * e.g. to AND it with another bitmap
+     */
+    public <T> T withMembers(String category, Function<IdBitmap, T> function) {
+        lock.lock();
+        try {
+            IdBitmap ids = members.get(category);
+            return function.apply(ids == null ? new IdBitmap() : ids);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Facet counts over an arbitrary result set, e.g. the hits of a search, taking the
+     * available copies of known books from the tracked counts
+     */
+    public List<CategoryFacet> facetsOf(Collection<Book> results) {
+        TreeMap<String, long[]> grouped = new TreeMap<>();
+        lock.lock();
+        try {
+            for (Book book : results) {
+                Snapshot tracked = books.get(book.getId());
+                long[] c = grouped.computeIfAbsent(book.getCategory(), k -> new long[2]);
+                c[0]++;
+                c[1] += tracked != null ? tracked.availableCopies() : snapshot(book, 0).availableCopies();
+            }
+        } finally {
+            lock.unlock();
+        }
+        List<CategoryFacet> facets = new ArrayList<>(grouped.size());
+        grouped.forEach((category, c) -> facets.add(new CategoryFacet(category, c[0], c[1])));
+        return facets;
+    }
+
+    private void add(Long id, Snapshot snapshot) {
+        books.put(id, snapshot);
+        long[] c = counts.computeIfAbsent(snapshot.category(), k -> new long[2]);
+        c[0]++;
+        c[1] += snapshot.availableCopies();
+        members.computeIfAbsent(snapshot.category(), k -> new IdBitmap()).add(id);
+    }
+
+    private void subtract(Long id) {
+        Snapshot previous = books.remove(id);
+        if (previous == null) {
+            return;
+        }
+        long[] c = counts.get(previous.category());
+        c[0]--;
+        c[1] -= previous.availableCopies();
+        members.get(previous.category()).remove(id);
+        if (c[0] <= 0) {
+            counts.remove(previous.category());
+            members.remove(previous.category());
+        }
+    }
+
+    private static Snapshot snapshot(Book book, int held) {
+        int available = book.getAvailableCopies() == null ? 0 : book.getAvailableCopies();
+        return new Snapshot(book.getCategory(), Math.max(0, available - held));
+    }
+}
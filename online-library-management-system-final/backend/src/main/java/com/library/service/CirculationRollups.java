@@ -0,0 +1,315 @@
+package com.library.service;
+
+import com.library.dto.CirculationBucket;
+import com.library.entity.CirculationRollup;
+import com.library.entity.CirculationRollup.Activity;
+import com.library.entity.CirculationRollup.Granularity;
+import com.library.entity.User;
+import com.library.repository.BorrowRecordRepository;
+import com.library.repository.CirculationRollupRepository;
+import com.library.repository.ReservationRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Borrows, returns and reservations counted per hour and per day, by book category and
+ * user role, in the circulation_rollups table. Events add to an in-memory buffer that is
+ * written out every few seconds with one UPDATE per touched bucket, so a busy hour costs
+ * a handful of rows rather than one per loan.
+ *
+ * Daily buckets of past days can be rebuilt from borrow_records and reservations in
+ * batches of days. That runs in the background after startup for the days since the
+ * last bucket, so a long gap does not hold up readiness, and every night for the day
+ * before, which also corrects counts lost when the application
+ * stopped with a full buffer. History only has dates, so hourly buckets exist from the
+ * moment live counting started and are kept for a limited number of days.
+ */
+@Component
+public class CirculationRollups {
+
+    private static final Logger logger = LoggerFactory.getLogger(CirculationRollups.class);
+
+    public static final int MAX_HOURLY_DAYS = 31;
+    public static final int MAX_RANGE_DAYS = 366 * 5;
+
+    @Autowired
+    private CirculationRollupRepository rollupRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LibraryDataVersion dataVersion;
+
+    @Value("${library.rollups.hourly-retention-days:35}")
+    private int hourlyRetentionDays;
+
+    @Value("${library.rollups.backfill-batch-days:31}")
+    private int backfillBatchDays;
+
+    private record Key(Granularity granularity, LocalDateTime bucketStart, Activity activity,
+                       String category, User.Role role) {}
+
+    private final Map<Key, Long> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rollup-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void on(LibraryEvents.BooksBorrowed event) {
+        event.categories().forEach(category -> record(Activity.BORROW, category, event.role()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void on(LibraryEvents.BooksReturned event) {
+        event.categories().forEach(category -> record(Activity.RETURN, category, event.role()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void on(LibraryEvents.BookReserved event) {
+        record(Activity.RESERVE, event.category(), event.role());
+    }
+
+    private void record(Activity activity, String category, User.Role role) {
+        LocalDateTime now = LocalDateTime.now();
+        pending.merge(new Key(Granularity.HOUR, now.truncatedTo(ChronoUnit.HOURS), activity, category, role), 1L, Long::sum);
+        pending.merge(new Key(Granularity.DAY, now.truncatedTo(ChronoUnit.DAYS), activity, category, role), 1L, Long::sum);
+    }
+
+    /**
+     * Write the buffered counts, one UPDATE per bucket and an INSERT for buckets not yet
+     * in the table. Counts that fail to write stay buffered for the next run.
+     */
+    @Scheduled(fixedDelayString = "${library.rollups.flush-interval-ms:10000}")
+    public void flush() {
+        writeLock.lock();
+        try {
+            Map<Key, Long> batch = new HashMap<>();
+            for (Key key : new ArrayList<>(pending.keySet())) {
+                Long delta = pending.remove(key);
+                if (delta != null) {
+                    batch.put(key, delta);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> batch.forEach((key, delta) -> {
+                    int updated = rollupRepository.increment(key.granularity(), key.bucketStart(), key.activity(),
+                            key.category(), key.role(), delta);
+                    if (updated == 0) {
+                        rollupRepository.save(new CirculationRollup(key.granularity(), key.bucketStart(),
+                                key.activity(), key.category(), key.role(), delta));
+                    }
+                }));
+                dataVersion.bump();
+            } catch (RuntimeException e) {
+                batch.forEach((key, delta) -> pending.merge(key, delta, Long::sum));
+                logger.warn("Circulation rollup flush failed, {} buckets kept for the next run", batch.size(), e);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Bring daily buckets up to date from the day of the last bucket, or from the start of
+     * history on a fresh table. Runs on the backfill thread; ranges read meanwhile may
+     * miss the days not yet rebuilt.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        backfillExecutor.execute(() -> {
+            try {
+                LocalDateTime latest = rollupRepository.findLatestBucket(Granularity.DAY);
+                LocalDate from = latest != null ? latest.toLocalDate() : earliestHistory();
+                if (from != null) {
+                    backfill(from, LocalDate.now().minusDays(1));
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Circulation rollup catch-up failed, rebuild the missing days with a backfill", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    /**
+     * Rebuild yesterday's daily buckets from the raw records and drop expired hourly ones
+     */
+    @Scheduled(cron = "${library.rollups.nightly-cron:0 15 0 * * *}")
+    public void nightly() {
+        LocalDate today = LocalDate.now();
+        backfill(today.minusDays(1), today.minusDays(1));
+        writeLock.lock();
+        try {
+            Integer pruned = transactionTemplate.execute(status -> rollupRepository.deleteRange(Granularity.HOUR,
+                    LocalDateTime.of(1970, 1, 1, 0, 0), today.minusDays(hourlyRetentionDays).atStartOfDay()));
+            logger.info("Circulation rollups: {} expired hourly buckets removed", pruned);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Recompute the daily buckets of the given past days from borrow_records and
+     * reservations, one transaction per batch of days. Today is left to live counting.
+     */
+    public Map<String, Object> backfill(LocalDate from, LocalDate to) {
+        LocalDate last = to.isBefore(LocalDate.now()) ? to : LocalDate.now().minusDays(1);
+        int batches = 0;
+        long rows = 0;
+        for (LocalDate start = from; !start.isAfter(last); start = start.plusDays(backfillBatchDays)) {
+            LocalDate end = start.plusDays(backfillBatchDays - 1);
+            LocalDate batchEnd = end.isAfter(last) ? last : end;
+            rows += backfillBatch(start, batchEnd);
+            batches++;
+        }
+        if (batches > 0) {
+            logger.info("Circulation rollups backfilled from {} to {}: {} daily buckets in {} batches",
+                    from, last, rows, batches);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("to", last);
+        result.put("batches", batches);
+        result.put("dailyBuckets", rows);
+        return result;
+    }
+
+    private int backfillBatch(LocalDate from, LocalDate to) {
+        writeLock.lock();
+        try {
+            // Buffered counts for these days must land before the rows are replaced
+            flush();
+            int rows = transactionTemplate.execute(status -> {
+                rollupRepository.deleteRange(Granularity.DAY, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+                List<CirculationRollup> rollups = new ArrayList<>();
+                addRows(rollups, Activity.BORROW, borrowRecordRepository.countBorrowsByDayCategoryRole(from, to));
+                addRows(rollups, Activity.RETURN, borrowRecordRepository.countReturnsByDayCategoryRole(from, to));
+                addRows(rollups, Activity.RESERVE, reservationRepository.countReservationsByDayCategoryRole(from, to));
+                rollupRepository.saveAll(rollups);
+                return rollups.size();
+            });
+            dataVersion.bump();
+            return rows;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void addRows(List<CirculationRollup> rollups, Activity activity, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            rollups.add(new CirculationRollup(Granularity.DAY, ((LocalDate) row[0]).atStartOfDay(), activity,
+                    (String) row[1], (User.Role) row[2], (Long) row[3]));
+        }
+    }
+
+    private LocalDate earliestHistory() {
+        LocalDate borrows = borrowRecordRepository.findEarliestBorrowDate();
+        LocalDate reservations = reservationRepository.findEarliestReservationDate();
+        if (borrows == null || reservations == null) {
+            return borrows != null ? borrows : reservations;
+        }
+        return borrows.isBefore(reservations) ? borrows : reservations;
+    }
+
+    /**
+     * Check a range before it is read: granularity hour, day or month, and at most
+     * {@value #MAX_HOURLY_DAYS} days for hourly ranges or {@value #MAX_RANGE_DAYS} otherwise
+     *
+     * @throws IllegalArgumentException when the range cannot be read
+     */
+    public void validateRange(LocalDate from, LocalDate to, String granularity) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Range end must not be before its start");
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        boolean hourly = "hour".equals(granularity);
+        if (!hourly && !"month".equals(granularity) && !"day".equals(granularity)) {
+            throw new IllegalArgumentException("Granularity must be hour, day or month");
+        }
+        if (days > (hourly ? MAX_HOURLY_DAYS : MAX_RANGE_DAYS)) {
+            throw new IllegalArgumentException("Range is limited to " + (hourly ? MAX_HOURLY_DAYS : MAX_RANGE_DAYS)
+                    + " days for " + granularity + " granularity");
+        }
+    }
+
+    /**
+     * Counts per bucket between the given days, both included. Hourly ranges read hourly
+     * buckets, daily and monthly ranges read daily ones. The database sums the buckets,
+     * by month for monthly ranges, and sums category and role away unless the caller
+     * splits by them. Live counts show up once flushed.
+     */
+    public List<CirculationBucket> range(LocalDate from, LocalDate to, String granularity,
+                                         boolean byCategory, boolean byRole) {
+        validateRange(from, to, granularity);
+        boolean hourly = "hour".equals(granularity);
+        boolean monthly = "month".equals(granularity);
+
+        Granularity stored = hourly ? Granularity.HOUR : Granularity.DAY;
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        List<Object[]> rows;
+        if (monthly) {
+            rows = byCategory && byRole ? rollupRepository.sumByMonthCategoryAndRole(stored, start, end)
+                    : byCategory ? rollupRepository.sumByMonthAndCategory(stored, start, end)
+                    : byRole ? rollupRepository.sumByMonthAndRole(stored, start, end)
+                    : rollupRepository.sumByMonth(stored, start, end);
+        } else {
+            rows = byCategory && byRole ? rollupRepository.sumByBucketCategoryAndRole(stored, start, end)
+                    : byCategory ? rollupRepository.sumByBucketAndCategory(stored, start, end)
+                    : byRole ? rollupRepository.sumByBucketAndRole(stored, start, end)
+                    : rollupRepository.sumByBucket(stored, start, end);
+        }
+
+        List<CirculationBucket> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            int column = 0;
+            LocalDateTime bucket = monthly
+                    ? LocalDate.of(((Number) row[column++]).intValue(), ((Number) row[column++]).intValue(), 1).atStartOfDay()
+                    : (LocalDateTime) row[column++];
+            Activity activity = (Activity) row[column++];
+            String category = byCategory ? (String) row[column++] : null;
+            User.Role role = byRole ? (User.Role) row[column++] : null;
+            result.add(new CirculationBucket(bucket, activity, category, role, ((Number) row[column]).longValue()));
+        }
+        return result;
+    }
+}
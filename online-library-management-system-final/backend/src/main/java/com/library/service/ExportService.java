@@ -0,0 +1,156 @@
+package com.library.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Streams tables for the data warehouse straight from a forward-only JDBC cursor.
+ * Rows are written as they are fetched, so memory use is bounded by the fetch size.
+ */
+@Service
+public class ExportService {
+
+    public enum Format {
+        CSV, JSONL
+    }
+
+    private static final String BOOKS_SQL = "SELECT id, title, author, isbn, category, available_copies, " +
+            "total_copies, price, cover_image_url FROM books WHERE id > ? ORDER BY id";
+
+    private static final String BORROW_RECORDS_SQL = "SELECT id, user_id, book_id, borrow_date, return_date, " +
+            "status, fine_amount, fine_paid FROM borrow_records WHERE id > ? ORDER BY id";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${library.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private JdbcTemplate exportTemplate;
+
+    @PostConstruct
+    public void init() {
+        exportTemplate = new JdbcTemplate(dataSource);
+        exportTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Books with id greater than afterId, in id order
+     */
+    public void exportBooks(long afterId, Format format, OutputStream out) throws IOException {
+        export(BOOKS_SQL, afterId, format, out);
+    }
+
+    /**
+     * Borrow records with id greater than afterId, in id order
+     */
+    public void exportBorrowRecords(long afterId, Format format, OutputStream out) throws IOException {
+        export(BORROW_RECORDS_SQL, afterId, format, out);
+    }
+
+    private void export(String sql, long afterId, Format format, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        JsonGenerator json = format == Format.JSONL ? objectMapper.getFactory().createGenerator(writer) : null;
+        if (json != null) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+        }
+        // Resumed exports continue a file that already has its header
+        boolean[] headerPending = {format == Format.CSV && afterId == 0};
+        try {
+            exportTemplate.query(sql, rs -> {
+                try {
+                    if (format == Format.CSV) {
+                        if (headerPending[0]) {
+                            writeCsvHeader(rs.getMetaData(), writer);
+                            headerPending[0] = false;
+                        }
+                        writeCsvRow(rs, writer);
+                    } else {
+                        writeJsonRow(rs, json);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, afterId);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvHeader(ResultSetMetaData meta, Writer writer) throws SQLException, IOException {
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            writer.write(meta.getColumnLabel(i).toLowerCase());
+        }
+        writer.write('\n');
+    }
+
+    private static void writeCsvRow(ResultSet rs, Writer writer) throws SQLException, IOException {
+        int columns = rs.getMetaData().getColumnCount();
+        for (int i = 1; i <= columns; i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            String value = rs.getString(i);
+            if (value != null) {
+                writer.write(escapeCsv(value));
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void writeJsonRow(ResultSet rs, JsonGenerator json) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        json.writeStartObject();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            json.writeFieldName(meta.getColumnLabel(i).toLowerCase());
+            String value = rs.getString(i);
+            if (value == null) {
+                json.writeNull();
+                continue;
+            }
+            switch (meta.getColumnType(i)) {
+                case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT,
+                     Types.DECIMAL, Types.NUMERIC, Types.DOUBLE, Types.FLOAT, Types.REAL -> json.writeNumber(value);
+                case Types.BOOLEAN, Types.BIT -> json.writeBoolean(rs.getBoolean(i));
+                default -> json.writeString(value);
+            }
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
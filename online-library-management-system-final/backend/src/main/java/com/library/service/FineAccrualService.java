@@ -0,0 +1,147 @@
+package com.library.service;
+
+import com.library.entity.BorrowRecord;
+import com.library.repository.BorrowRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves loans to OVERDUE as they pass their due date and accrues their fines. All loans
+ * borrowed on the same day share a due date and a fine, so each run issues one UPDATE per
+ * borrow date rather than one per loan. New overdue dates come from the OverdueTracker,
+ * and dates whose fine already reached the cap are left alone, so a daily run only
+ * touches loans that became overdue or are still accruing.
+ */
+@Service
+public class FineAccrualService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FineAccrualService.class);
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private OverdueTracker overdueTracker;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${library.fines.daily-rate-cents:500}")
+    private long dailyRateCents;
+
+    /** Highest fine per loan; 0 means fines keep growing until the book is returned */
+    @Value("${library.fines.max-cents:50000}")
+    private long maxCents;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+    private volatile LocalDate lastRun;
+
+    /**
+     * Load open loan counts per borrow date and bring every overdue loan's fine up to date
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        LocalDate cutoff = overdueCutoff(LocalDate.now());
+        Map<LocalDate, Integer> onLoan = new HashMap<>();
+        Map<LocalDate, Integer> overdue = new HashMap<>();
+        for (Object[] row : borrowRecordRepository.countOpenByBorrowDate()) {
+            LocalDate borrowDate = (LocalDate) row[0];
+            int count = ((Long) row[1]).intValue();
+            (borrowDate.isAfter(cutoff) ? onLoan : overdue).put(borrowDate, count);
+        }
+        overdueTracker.reset(onLoan, overdue);
+        runLock.lock();
+        try {
+            lastRun = null;
+        } finally {
+            runLock.unlock();
+        }
+        accrue();
+    }
+
+    @Scheduled(cron = "${library.fines.accrual-cron:0 5 0 * * *}")
+    public void accrue() {
+        runLock.lock();
+        try {
+            LocalDate today = LocalDate.now();
+            List<LocalDate> newlyOverdue = overdueTracker.markOverdue(overdueCutoff(today));
+            List<LocalDate> accruing = overdueTracker.overdueSince(accrualStart());
+
+            Map<LocalDate, Long> fines = new LinkedHashMap<>();
+            for (LocalDate borrowDate : accruing) {
+                fines.put(borrowDate, fineCents(borrowDate, today));
+            }
+            if (!fines.isEmpty()) {
+                Integer updated = transactionTemplate.execute(status -> {
+                    int rows = 0;
+                    for (Map.Entry<LocalDate, Long> fine : fines.entrySet()) {
+                        rows += borrowRecordRepository.accrueFine(fine.getKey(), BigDecimal.valueOf(fine.getValue(), 2));
+                    }
+                    return rows;
+                });
+                logger.info("Fine accrual: {} borrow dates newly overdue, {} loans updated with {} statements",
+                        newlyOverdue.size(), updated, fines.size());
+            }
+            lastRun = today;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("overdueLoans", overdueTracker.overdueCount());
+        stats.put("loansWithinPeriod", overdueTracker.onLoanCount());
+        stats.put("dailyRateCents", dailyRateCents);
+        stats.put("maxCents", maxCents);
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    /**
+     * Fine in cents for a loan borrowed on the given date, as of the given day
+     */
+    public long fineCents(LocalDate borrowDate, LocalDate asOf) {
+        long daysOverdue = ChronoUnit.DAYS.between(borrowDate.plusDays(BorrowRecord.LOAN_PERIOD_DAYS), asOf);
+        if (daysOverdue <= 0) {
+            return 0;
+        }
+        long fine = daysOverdue * dailyRateCents;
+        return maxCents > 0 ? Math.min(fine, maxCents) : fine;
+    }
+
+    /**
+     * Loans borrowed on or before this date are overdue on the given day
+     */
+    private static LocalDate overdueCutoff(LocalDate today) {
+        return today.minusDays(BorrowRecord.LOAN_PERIOD_DAYS + 1);
+    }
+
+    /**
+     * Earliest borrow date whose fine was still below the cap at the last run. Before the
+     * first run, or without a cap, every overdue date needs updating.
+     */
+    private LocalDate accrualStart() {
+        if (lastRun == null || maxCents <= 0 || dailyRateCents <= 0) {
+            return LocalDate.MIN;
+        }
+        long daysToCap = (maxCents + dailyRateCents - 1) / dailyRateCents;
+        return lastRun.minusDays(BorrowRecord.LOAN_PERIOD_DAYS + daysToCap - 1);
+    }
+}
@@ -0,0 +1,114 @@
+package com.library.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires a callback when a pickup hold lapses. Deadlines live in the executor's delay
+ * queue (a binary heap), so nothing polls the database; a hold that is picked up or
+ * cancelled has its timer removed. A callback that fails is retried with exponential
+ * backoff, and its timer stays registered until it succeeds or is cancelled.
+ */
+@Component
+public class HoldExpiryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HoldExpiryScheduler.class);
+
+    private static final long RETRY_BASE_MS = 1_000;
+    private static final long RETRY_MAX_MS = 300_000;
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<Long, Timer> timers = new ConcurrentHashMap<>();
+
+    public HoldExpiryScheduler() {
+        executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Run onExpiry for the reservation at the given time, replacing any earlier timer
+     */
+    public void schedule(Long reservationId, LocalDateTime expiresAt, Runnable onExpiry) {
+        long delayMs = Math.max(0, Duration.between(LocalDateTime.now(), expiresAt).toMillis());
+        Timer timer = new Timer(reservationId, onExpiry);
+        Timer previous = timers.put(reservationId, timer);
+        if (previous != null) {
+            previous.cancel();
+        }
+        timer.arm(delayMs);
+    }
+
+    public void cancel(Long reservationId) {
+        Timer timer = timers.remove(reservationId);
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    public int pending() {
+        return timers.size();
+    }
+
+    /**
+     * One hold's expiry. Runs on the single executor thread, so attempts needs no guard.
+     */
+    private final class Timer implements Runnable {
+        private final Long reservationId;
+        private final Runnable onExpiry;
+        private int attempts;
+        private volatile ScheduledFuture<?> future;
+
+        Timer(Long reservationId, Runnable onExpiry) {
+            this.reservationId = reservationId;
+            this.onExpiry = onExpiry;
+        }
+
+        void arm(long delayMs) {
+            future = executor.schedule(this, delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        void cancel() {
+            ScheduledFuture<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (timers.get(reservationId) != this) {
+                // Cancelled or replaced after this run was queued
+                return;
+            }
+            try {
+                onExpiry.run();
+                timers.remove(reservationId, this);
+            } catch (RuntimeException e) {
+                long retryMs = Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(attempts, 20));
+                attempts++;
+                logger.error("Failed to expire hold {} (attempt {}), retrying in {} ms",
+                        reservationId, attempts, retryMs, e);
+                arm(retryMs);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
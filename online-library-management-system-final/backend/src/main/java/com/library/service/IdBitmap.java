@@ -0,0 +1,261 @@
+package com.library.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compressed set of ids in the style of Roaring bitmaps. Ids are split into a
+ * 16-bit low part and the remaining high part; each high key owns a container
+ * that is a sorted short array while sparse and a 65536-bit bitmap once dense.
+ * Not thread-safe, callers guard access.
+ */
+public class IdBitmap {
+
+    // Above this many entries an array container is larger than a bitmap container
+    private static final int ARRAY_MAX = 4096;
+
+    private final TreeMap<Long, Container> containers = new TreeMap<>();
+
+    public boolean add(long id) {
+        Container container = containers.get(id >>> 16);
+        if (container == null) {
+            container = new ArrayContainer();
+            containers.put(id >>> 16, container);
+        }
+        int low = (int) (id & 0xFFFF);
+        if (container.contains(low)) {
+            return false;
+        }
+        Container updated = container.add(low);
+        if (updated != container) {
+            containers.put(id >>> 16, updated);
+        }
+        return true;
+    }
+
+    public boolean remove(long id) {
+        Container container = containers.get(id >>> 16);
+        int low = (int) (id & 0xFFFF);
+        if (container == null || !container.contains(low)) {
+            return false;
+        }
+        Container updated = container.remove(low);
+        if (updated.cardinality() == 0) {
+            containers.remove(id >>> 16);
+        } else if (updated != container) {
+            containers.put(id >>> 16, updated);
+        }
+        return true;
+    }
+
+    public boolean contains(long id) {
+        Container container = containers.get(id >>> 16);
+        return container != null && container.contains((int) (id & 0xFFFF));
+    }
+
+    public long cardinality() {
+        long total = 0;
+        for (Container container : containers.values()) {
+            total += container.cardinality();
+        }
+        return total;
+    }
+
+    public void clear() {
+        containers.clear();
+    }
+
+    /**
+     * Ids present in both bitmaps, only visiting high keys the two have in common
+     */
+    public IdBitmap and(IdBitmap other) {
+        IdBitmap result = new IdBitmap();
+        for (Map.Entry<Long, Container> entry : containers.entrySet()) {
+            Container theirs = other.containers.get(entry.getKey());
+            if (theirs == null) {
+                continue;
+            }
+            long high = entry.getKey() << 16;
+            Container mine = entry.getValue();
+            Container smaller = mine.cardinality() <= theirs.cardinality() ? mine : theirs;
+            Container larger = smaller == mine ? theirs : mine;
+            for (Iterator<Integer> it = smaller.iterator(); it.hasNext(); ) {
+                int low = it.next();
+                if (larger.contains(low)) {
+                    result.add(high | low);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * All ids in ascending order
+     */
+    public List<Long> toList() {
+        List<Long> ids = new ArrayList<>();
+        for (Map.Entry<Long, Container> entry : containers.entrySet()) {
+            long high = entry.getKey() << 16;
+            for (Iterator<Integer> it = entry.getValue().iterator(); it.hasNext(); ) {
+                ids.add(high | it.next());
+            }
+        }
+        return ids;
+    }
+
+    private interface Container {
+        boolean contains(int low);
+
+        Container add(int low);
+
+        Container remove(int low);
+
+        int cardinality();
+
+        Iterator<Integer> iterator();
+    }
+
+    private static final class ArrayContainer implements Container {
+        private short[] values = new short[4];
+        private int size = 0;
+
+        @Override
+        public boolean contains(int low) {
+            return find(low) >= 0;
+        }
+
+        @Override
+        public Container add(int low) {
+            if (size >= ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            int pos = -find(low) - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, size * 2));
+            }
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            values[pos] = (short) low;
+            size++;
+            return this;
+        }
+
+        @Override
+        public Container remove(int low) {
+            int pos = find(low);
+            System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+            size--;
+            return this;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<>() {
+                private int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < size;
+                }
+
+                @Override
+                public Integer next() {
+                    return Short.toUnsignedInt(values[i++]);
+                }
+            };
+        }
+
+        private int find(int low) {
+            int lo = 0;
+            int hi = size - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int value = Short.toUnsignedInt(values[mid]);
+                if (value < low) {
+                    lo = mid + 1;
+                } else if (value > low) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(lo + 1);
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(Short.toUnsignedInt(values[i]));
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[1024];
+        private int cardinality = 0;
+
+        @Override
+        public boolean contains(int low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public Container add(int low) {
+            words[low >>> 6] |= 1L << low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public Container remove(int low) {
+            words[low >>> 6] &= ~(1L << low);
+            cardinality--;
+            if (cardinality <= ARRAY_MAX) {
+                ArrayContainer array = new ArrayContainer();
+                for (Iterator<Integer> it = iterator(); it.hasNext(); ) {
+                    array.add(it.next());
+                }
+                return array;
+            }
+            return this;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<>() {
+                private int word = 0;
+                private long bits = words[0];
+
+                @Override
+                public boolean hasNext() {
+                    while (bits == 0 && word < words.length - 1) {
+                        bits = words[++word];
+                    }
+                    return bits != 0;
+                }
+
+                @Override
+                public Integer next() {
+                    hasNext();
+                    int low = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    return low;
+                }
+            };
+        }
+    }
+}
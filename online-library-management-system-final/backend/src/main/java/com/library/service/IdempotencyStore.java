@@ -0,0 +1,128 @@
+package com.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the response of each request sent with an Idempotency-Key, so a client that
+ * retries after a timeout gets the original response instead of running the operation
+ * again. Completed responses are kept in a bounded store and expire after a TTL. Requests
+ * still running are tracked in a separate map that is never evicted, and a duplicate
+ * arriving meanwhile waits for the first one's outcome. Failed requests are not
+ * remembered, so they can be retried.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    @Value("${library.idempotency.max-entries:100000}")
+    private long maxEntries;
+
+    @Value("${library.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${library.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    private Cache<String, ResponseEntity<?>> responses;
+    private final Map<String, CompletableFuture<ResponseEntity<?>>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * Run the action once per key within the scope. Without a key the action simply runs.
+     * The scope should identify the caller and the operation, so keys from different
+     * users or endpoints never collide.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String key, String scope, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = scope + "|" + key;
+        ResponseEntity<?> done = responses.getIfPresent(storeKey);
+        if (done != null) {
+            return (ResponseEntity<T>) replay(done);
+        }
+        CompletableFuture<ResponseEntity<?>> mine = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> first = inFlight.putIfAbsent(storeKey, mine);
+        if (first != null) {
+            return (ResponseEntity<T>) replay(await(first));
+        }
+        // The first request may have completed between the two lookups
+        done = responses.getIfPresent(storeKey);
+        if (done != null) {
+            inFlight.remove(storeKey, mine);
+            mine.complete(done);
+            return (ResponseEntity<T>) replay(done);
+        }
+
+        try {
+            ResponseEntity<T> response = action.get();
+            responses.put(storeKey, response);
+            inFlight.remove(storeKey, mine);
+            mine.complete(response);
+            return response;
+        } catch (Throwable e) {
+            // Errors included, so duplicates waiting on this request are never left hanging
+            inFlight.remove(storeKey, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public long size() {
+        return responses.estimatedSize() + inFlight.size();
+    }
+
+    private ResponseEntity<?> await(CompletableFuture<ResponseEntity<?>> first) {
+        try {
+            return first.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The original attempt failed; its duplicates fail the same way
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("A request with this " + HEADER + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the original request");
+        }
+    }
+
+    private ResponseEntity<?> replay(ResponseEntity<?> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(headers -> {
+                    headers.addAll(response.getHeaders());
+                    headers.set(REPLAYED_HEADER, "true");
+                })
+                .body(response.getBody());
+    }
+}
@@ -0,0 +1,40 @@
+package com.library.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the library's data as a whole, bumped by every domain event and by
+ * writes that bypass them, such as the circulation rollups. Cached report results are
+ * keyed by it, so a change makes the next request compute a fresh result. Starts from the
+ * boot time so versions are not reused across restarts.
+ */
+@Component
+public class LibraryDataVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true, classes = {
+            LibraryEvents.CatalogChanged.class,
+            LibraryEvents.BooksBorrowed.class,
+            LibraryEvents.BooksReturned.class,
+            LibraryEvents.UserRegistered.class,
+            LibraryEvents.UserDeleted.class,
+            LibraryEvents.ReservationsChanged.class,
+            LibraryEvents.BookReserved.class
+    })
+    public void changed() {
+        version.incrementAndGet();
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    public long bump() {
+        return version.incrementAndGet();
+    }
+}
@@ -0,0 +1,43 @@
+package com.library.service;
+
+import com.library.entity.User;
+
+import java.util.List;
+
+/**
+ * Domain events published by the services inside the transaction that makes the change.
+ * Listeners apply them after that transaction commits, so a rolled-back change is never
+ * counted: LibraryStats turns them into dashboard counters and CirculationRollups into
+ * time-series buckets. Each carries the deltas it caused.
+ */
+public final class LibraryEvents {
+
+    private LibraryEvents() {}
+
+    /** Books added to, changed in or removed from the catalog */
+    public record CatalogChanged(long books, long copies, long availableCopies) {}
+
+    /** Loans opened by one user, with the category of each book borrowed */
+    public record BooksBorrowed(Long userId, User.Role role, List<String> categories) {
+        public int count() {
+            return categories.size();
+        }
+    }
+
+    /** Loans closed by one user, with the category of each book returned */
+    public record BooksReturned(Long userId, User.Role role, List<String> categories) {
+        public int count() {
+            return categories.size();
+        }
+    }
+
+    public record UserRegistered(Long userId) {}
+
+    public record UserDeleted(Long userId) {}
+
+    /** Change in the number of open reservations (waiting or ready for pickup) */
+    public record ReservationsChanged(int delta) {}
+
+    /** A new reservation joined a book's queue */
+    public record BookReserved(Long userId, User.Role role, String category) {}
+}
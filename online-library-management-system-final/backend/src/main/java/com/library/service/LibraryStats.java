@@ -0,0 +1,238 @@
+package com.library.service;
+
+import com.library.entity.BorrowRecord;
+import com.library.entity.Reservation;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowRecordRepository;
+import com.library.repository.ReservationRepository;
+import com.library.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters for the admin dashboard, fed by LibraryEvents so a dashboard refresh is a
+ * handful of memory reads. Overdue loans come from the OverdueTracker, which already
+ * counts them. Counters are applied once the publishing transaction has committed, and
+ * are loaded at startup and reconciled with the database on a fixed delay. A transaction
+ * that has published events but not yet applied them is counted as pending from publish
+ * to completion; a reconcile run that overlaps a pending transaction or an applied event
+ * may have read a commit the counters do not show yet, so it is retried and, failing
+ * that, left for the next run.
+ */
+@Component
+public class LibraryStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(LibraryStats.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private OverdueTracker overdueTracker;
+
+    private final LongAdder books = new LongAdder();
+    private final LongAdder copies = new LongAdder();
+    private final LongAdder availableCopies = new LongAdder();
+    private final LongAdder users = new LongAdder();
+    private final LongAdder activeLoans = new LongAdder();
+    private final LongAdder returnedLoans = new LongAdder();
+    private final LongAdder openReservations = new LongAdder();
+
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    /** Transactions that published a counted event and have not completed yet */
+    private final AtomicInteger pending = new AtomicInteger();
+    /** Bumped after every applied event */
+    private final AtomicLong applied = new AtomicLong();
+
+    /**
+     * Runs as the event is published, before the transaction commits, so reconcile knows
+     * a change may be committed without being counted yet
+     */
+    @EventListener({
+            LibraryEvents.CatalogChanged.class,
+            LibraryEvents.BooksBorrowed.class,
+            LibraryEvents.BooksReturned.class,
+            LibraryEvents.UserRegistered.class,
+            LibraryEvents.UserDeleted.class,
+            LibraryEvents.ReservationsChanged.class
+    })
+    public void published() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        pending.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // After every afterCommit callback, so the counters are already applied
+                pending.decrementAndGet();
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void on(LibraryEvents.CatalogChanged event) {
+        books.add(event.books());
+        copies.add(event.copies());
+        availableCopies.add(event.availableCopies());
+        applied.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void on(LibraryEvents.BooksBorrowed event) {
+        activeLoans.add(event.count());
+        availableCopies.add(-event.count());
+        applied.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void on(LibraryEvents.BooksReturned event) {
+        activeLoans.add(-event.count());
+        returnedLoans.add(event.count());
+        availableCopies.add(event.count());
+        applied.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void on(LibraryEvents.UserRegistered event) {
+        users.increment();
+        applied.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void on(LibraryEvents.UserDeleted event) {
+        users.decrement();
+        applied.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void on(LibraryEvents.ReservationsChanged event) {
+        openReservations.add(event.delta());
+        applied.incrementAndGet();
+    }
+
+    public long books() {
+        return books.sum();
+    }
+
+    public long users() {
+        return users.sum();
+    }
+
+    public long activeLoans() {
+        return activeLoans.sum();
+    }
+
+    public long returnedLoans() {
+        return returnedLoans.sum();
+    }
+
+    public long availableCopies() {
+        return availableCopies.sum();
+    }
+
+    public long overdueLoans() {
+        return overdueTracker.overdueCount();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalBooks", books.sum());
+        stats.put("totalCopies", copies.sum());
+        stats.put("availableCopies", availableCopies.sum());
+        stats.put("totalUsers", users.sum());
+        stats.put("activeBorrows", activeLoans.sum());
+        stats.put("totalReturned", returnedLoans.sum());
+        stats.put("overdueBooks", overdueTracker.overdueCount());
+        stats.put("openReservations", openReservations.sum());
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${library.stats.reconcile-interval-ms:300000}",
+            initialDelayString = "${library.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        for (int attempt = 1; attempt <= RECONCILE_ATTEMPTS; attempt++) {
+            if (tryReconcile()) {
+                return;
+            }
+        }
+        logger.debug("Library stats reconcile skipped, counters kept changing");
+    }
+
+    private boolean tryReconcile() {
+        LongAdder[] counters = {books, copies, availableCopies, users, activeLoans, returnedLoans, openReservations};
+        long generation = applied.get();
+        long[] before = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            before[i] = counters[i].sum();
+        }
+
+        Object[] catalog = bookRepository.catalogTotals().get(0);
+        Map<BorrowRecord.Status, Long> loans = new EnumMap<>(BorrowRecord.Status.class);
+        for (Object[] row : borrowRecordRepository.countByStatus()) {
+            loans.put((BorrowRecord.Status) row[0], (Long) row[1]);
+        }
+        long[] actual = {
+                longValue(catalog[0]),
+                longValue(catalog[1]),
+                longValue(catalog[2]),
+                userRepository.count(),
+                loans.getOrDefault(BorrowRecord.Status.BORROWED, 0L) + loans.getOrDefault(BorrowRecord.Status.OVERDUE, 0L),
+                loans.getOrDefault(BorrowRecord.Status.RETURNED, 0L),
+                reservationRepository.countByStatusIn(List.of(Reservation.Status.ACTIVE, Reservation.Status.READY))
+        };
+
+        // Pending is read first: a change committed before the queries ended is either
+        // applied by the time the generation is read, or its transaction is still pending
+        if (pending.get() > 0 || applied.get() != generation) {
+            return false;
+        }
+        int corrected = 0;
+        for (int i = 0; i < counters.length; i++) {
+            if (before[i] != actual[i]) {
+                counters[i].add(actual[i] - before[i]);
+                corrected++;
+            }
+        }
+        if (corrected > 0) {
+            logger.info("Library stats reconciled, {} counters adjusted", corrected);
+        }
+        return true;
+    }
+
+    private static long longValue(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,139 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.Book;
+import com.library.entity.OutboxEvent;
+import com.library.entity.User;
+import com.library.repository.OutboxEventRepository;
+import com.library.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers patron notifications written to the outbox alongside reservation changes.
+ * Runs on the scheduler thread in batches, so request threads never wait on delivery,
+ * and an event is only marked processed after it was handed off.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${library.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${library.outbox.dispatch-interval-ms:5000}")
+    public void dispatch() {
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxEventRepository.findByProcessedAtIsNullOrderByIdAsc(Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Long> delivered = deliver(batch);
+            if (!delivered.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxEventRepository.markProcessed(delivered, LocalDateTime.now()));
+            }
+            if (delivered.size() < batch.size()) {
+                // Leave the rest for the next run rather than spinning on a failing event
+                return;
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    public long pending() {
+        return outboxEventRepository.countPending();
+    }
+
+    private List<Long> deliver(List<OutboxEvent> batch) {
+        List<JsonNode> payloads = new ArrayList<>();
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> bookIds = new HashSet<>();
+        for (OutboxEvent event : batch) {
+            JsonNode payload = parse(event);
+            payloads.add(payload);
+            if (payload != null) {
+                userIds.add(payload.path("userId").asLong());
+                bookIds.add(payload.path("bookId").asLong());
+            }
+        }
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Book> books = bookService.getByIds(bookIds);
+
+        List<Long> delivered = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            JsonNode payload = payloads.get(i);
+            if (payload == null) {
+                // Unreadable events are dropped so they cannot block the queue
+                delivered.add(event.getId());
+                continue;
+            }
+            try {
+                notifyPatron(event.getEventType(), users.get(payload.path("userId").asLong()),
+                        books.get(payload.path("bookId").asLong()), payload);
+                delivered.add(event.getId());
+            } catch (RuntimeException e) {
+                logger.warn("Could not deliver outbox event {}", event.getId(), e);
+                break;
+            }
+        }
+        return delivered;
+    }
+
+    private void notifyPatron(String type, User user, Book book, JsonNode payload) {
+        if (user == null || book == null) {
+            return;
+        }
+        switch (type) {
+            case ReservationService.HOLD_READY -> logger.info("Notify {}: \"{}\" is ready for pickup until {}",
+                    user.getEmail(), book.getTitle(), payload.path("readyUntil").asText());
+            case ReservationService.HOLD_EXPIRED -> logger.info("Notify {}: your hold on \"{}\" has expired",
+                    user.getEmail(), book.getTitle());
+            default -> logger.warn("Unknown outbox event type {}", type);
+        }
+    }
+
+    private JsonNode parse(OutboxEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload());
+        } catch (IOException e) {
+            logger.warn("Dropping outbox event {} with unreadable payload", event.getId());
+            return null;
+        }
+    }
+}
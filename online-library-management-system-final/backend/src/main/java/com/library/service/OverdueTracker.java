@@ -0,0 +1,128 @@
+package com.library.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Open loans counted per borrow date, split into loans still within their loan period and
+ * loans already overdue. Both sides are sorted by date, so finding the loans that crossed
+ * their due date is a head-map walk over just those dates instead of a scan of every
+ * borrow. Callers update it after their borrow or return has committed.
+ */
+@Component
+public class OverdueTracker {
+
+    private final TreeMap<LocalDate, Integer> onLoan = new TreeMap<>();
+    private final TreeMap<LocalDate, Integer> overdue = new TreeMap<>();
+    private long overdueCount;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Replace the contents with counts loaded from the database
+     */
+    public void reset(Map<LocalDate, Integer> onLoanCounts, Map<LocalDate, Integer> overdueCounts) {
+        lock.lock();
+        try {
+            onLoan.clear();
+            onLoan.putAll(onLoanCounts);
+            overdue.clear();
+            overdue.putAll(overdueCounts);
+            overdueCount = overdueCounts.values().stream().mapToLong(Integer::longValue).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void borrowed(LocalDate borrowDate, int count) {
+        lock.lock();
+        try {
+            onLoan.merge(borrowDate, count, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void returned(LocalDate borrowDate, int count) {
+        lock.lock();
+        try {
+            if (overdue.containsKey(borrowDate)) {
+                int removed = decrement(overdue, borrowDate, count);
+                overdueCount -= removed;
+            } else {
+                decrement(onLoan, borrowDate, count);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move every loan borrowed on or before the cutoff to the overdue side and return the
+     * borrow dates that moved
+     */
+    public List<LocalDate> markOverdue(LocalDate cutoff) {
+        lock.lock();
+        try {
+            NavigableMap<LocalDate, Integer> due = onLoan.headMap(cutoff, true);
+            List<LocalDate> moved = new ArrayList<>(due.keySet());
+            for (Map.Entry<LocalDate, Integer> bucket : due.entrySet()) {
+                overdue.merge(bucket.getKey(), bucket.getValue(), Integer::sum);
+                overdueCount += bucket.getValue();
+            }
+            due.clear();
+            return moved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Borrow dates of overdue loans borrowed on or after the given date
+     */
+    public List<LocalDate> overdueSince(LocalDate from) {
+        lock.lock();
+        try {
+            return new ArrayList<>(overdue.tailMap(from, true).keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long overdueCount() {
+        lock.lock();
+        try {
+            return overdueCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long onLoanCount() {
+        lock.lock();
+        try {
+            return onLoan.values().stream().mapToLong(Integer::longValue).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int decrement(TreeMap<LocalDate, Integer> counts, LocalDate date, int count) {
+        Integer current = counts.get(date);
+        if (current == null) {
+            return 0;
+        }
+        if (current <= count) {
+            counts.remove(date);
+            return current;
+        }
+        counts.put(date, current - count);
+        return count;
+    }
+}
@@ -0,0 +1,277 @@
+package com.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.dto.ReportJobResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs admin reports in the background so a slow aggregation holds neither a request
+ * thread nor more than a fixed number of database connections. Jobs run on a bounded
+ * pool with a bounded queue; a submission that finds the queue full is refused.
+ *
+ * Jobs are keyed by report type, resolved parameters and the LibraryDataVersion at
+ * submission. A request matching a job that is still running joins it, and one matching
+ * a finished job gets its result until the TTL runs out or the data changes. Failed jobs
+ * drop out of the key map so the next request retries them.
+ */
+@Component
+public class ReportJobs {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobs.class);
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    @Autowired
+    private CirculationRollups circulationRollups;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private LibraryDataVersion dataVersion;
+
+    @Value("${library.reports.workers:2}")
+    private int workers;
+
+    @Value("${library.reports.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${library.reports.result-ttl-minutes:10}")
+    private long resultTtlMinutes;
+
+    @Value("${library.reports.max-results:200}")
+    private long maxResults;
+
+    private record Prepared(Map<String, String> parameters, Supplier<Object> task) {}
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final String key;
+        final String type;
+        final Map<String, String> parameters;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        final CompletableFuture<Object> outcome = new CompletableFuture<>();
+        /** QUEUED or RUNNING; DONE and FAILED are read off the outcome */
+        volatile Status status = Status.QUEUED;
+        volatile LocalDateTime completedAt;
+
+        Job(String key, String type, Map<String, String> parameters) {
+            this.key = key;
+            this.type = type;
+            this.parameters = parameters;
+        }
+    }
+
+    private ThreadPoolExecutor executor;
+    private Cache<String, Job> jobsByKey;
+    private Cache<String, Job> jobsById;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "report-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        jobsByKey = Caffeine.newBuilder()
+                .maximumSize(maxResults)
+                .expireAfterWrite(Duration.ofMinutes(resultTtlMinutes))
+                .build();
+        // Kept a little longer so a client polling by id still finds a job the key map evicted
+        jobsById = Caffeine.newBuilder()
+                .maximumSize(maxResults * 2)
+                .expireAfterWrite(Duration.ofMinutes(resultTtlMinutes * 2))
+                .build();
+    }
+
+    /**
+     * Start the report, or return the job already running or finished for the same
+     * parameters and data. Bad parameters fail here rather than in the job.
+     *
+     * @throws IllegalArgumentException for an unknown type or bad parameters
+     * @throws IllegalStateException when the queue is full
+     */
+    public ReportJobResponse submit(String type, Map<String, String> parameters) {
+        Prepared prepared = prepare(type, parameters);
+        String key = type + "|" + prepared.parameters() + "@" + dataVersion.current();
+        Job[] created = {null};
+        Job job = jobsByKey.asMap().computeIfAbsent(key, k -> created[0] = new Job(k, type, prepared.parameters()));
+        if (created[0] == null) {
+            reused.increment();
+            return view(job, true);
+        }
+
+        jobsById.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, prepared.task()));
+        } catch (RejectedExecutionException e) {
+            jobsByKey.asMap().remove(key, job);
+            jobsById.invalidate(job.id);
+            rejected.increment();
+            throw new IllegalStateException("Report queue is full, try again later");
+        }
+        submitted.increment();
+        return view(job, false);
+    }
+
+    public Optional<ReportJobResponse> find(String id) {
+        return Optional.ofNullable(jobsById.getIfPresent(id)).map(job -> view(job, false));
+    }
+
+    /**
+     * Completes with the job's final state once it has finished, successfully or not
+     */
+    public Optional<CompletableFuture<ReportJobResponse>> whenDone(String id) {
+        Job job = jobsById.getIfPresent(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        return Optional.of(job.outcome.handle((result, error) -> view(job, false)));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers);
+        stats.put("running", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("cachedJobs", jobsByKey.estimatedSize());
+        stats.put("submitted", submitted.sum());
+        stats.put("reused", reused.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("dataVersion", dataVersion.current());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job, Supplier<Object> task) {
+        job.status = Status.RUNNING;
+        try {
+            Object result = task.get();
+            job.completedAt = LocalDateTime.now();
+            // Restart the TTL from completion rather than submission
+            jobsByKey.asMap().replace(job.key, job, job);
+            job.outcome.complete(result);
+        } catch (Throwable e) {
+            // Errors too, so nobody waiting on the outcome is left hanging
+            job.completedAt = LocalDateTime.now();
+            jobsByKey.asMap().remove(job.key, job);
+            logger.warn("Report job {} ({}) failed", job.id, job.type, e);
+            job.outcome.completeExceptionally(e);
+            if (e instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    private ReportJobResponse view(Job job, boolean reused) {
+        Status status = job.status;
+        Object result = null;
+        String error = null;
+        // The outcome decides the final state, so a finished job is never shown without its result
+        if (job.outcome.isDone()) {
+            try {
+                result = job.outcome.join();
+                status = Status.DONE;
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                error = cause.getMessage();
+                status = Status.FAILED;
+            }
+        }
+        return new ReportJobResponse(job.id, job.type, job.parameters, status.name(), reused,
+                job.submittedAt, job.completedAt, result, error);
+    }
+
+    /**
+     * Resolve the report's parameters, defaults included, so equivalent requests share a
+     * key, and bind them to the work to run
+     */
+    private Prepared prepare(String type, Map<String, String> parameters) {
+        Map<String, String> resolved = new LinkedHashMap<>();
+        switch (type) {
+            case "circulation" -> {
+                LocalDate to = date(parameters, "to", LocalDate.now());
+                LocalDate from = date(parameters, "from", to.minusDays(29));
+                String granularity = parameters.getOrDefault("granularity", "day");
+                boolean byCategory = Boolean.parseBoolean(parameters.get("byCategory"));
+                boolean byRole = Boolean.parseBoolean(parameters.get("byRole"));
+                circulationRollups.validateRange(from, to, granularity);
+                resolved.put("from", from.toString());
+                resolved.put("to", to.toString());
+                resolved.put("granularity", granularity);
+                resolved.put("byCategory", String.valueOf(byCategory));
+                resolved.put("byRole", String.valueOf(byRole));
+                return new Prepared(resolved, () -> circulationRollups.range(from, to, granularity, byCategory, byRole));
+            }
+            case "top-borrowed" -> {
+                int days = BookService.windowDays(parameters.getOrDefault("window", "all"));
+                String window = days == 0 ? "all" : days + "d";
+                int limit = Math.max(1, Math.min(number(parameters, "limit", 10), BookService.MAX_RANKED_RESULTS));
+                resolved.put("window", window);
+                resolved.put("limit", String.valueOf(limit));
+                return new Prepared(resolved, () -> bookService.mostBorrowed(window, limit));
+            }
+            default -> throw new IllegalArgumentException("Unknown report type: " + type);
+        }
+    }
+
+    private static LocalDate date(Map<String, String> parameters, String name, LocalDate fallback) {
+        String value = parameters.get(name);
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a date like 2024-01-31");
+        }
+    }
+
+    private static int number(Map<String, String> parameters, String name, int fallback) {
+        String value = parameters.get(name);
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number");
+        }
+    }
+}
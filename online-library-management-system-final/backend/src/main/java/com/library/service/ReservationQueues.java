@@ -0,0 +1,212 @@
+package com.library.service;
+
+import com.library.entity.Reservation;
+import com.library.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * FIFO queue of open reservations per book, keyed by user so membership checks are O(1).
+ * Holds that are ready for pickup stay at the front of the queue, the rest wait behind
+ * them in reservation order. Rebuilt from the database at startup; callers update it
+ * after their reservation changes have committed. Until it is ready every lookup goes
+ * to the database.
+ */
+@Component
+public class ReservationQueues {
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private final Map<Long, Queue> queues = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    public record Entry(Long reservationId, Long userId, boolean ready) {}
+
+    private static final class Queue {
+        final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>();
+        int readyCount;
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            queues.clear();
+            for (Object[] row : reservationRepository.findQueueEntries()) {
+                add((Long) row[1], toEntry(row));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Append a new reservation to the back of the book's queue
+     */
+    public void enqueue(Long bookId, Long userId, Long reservationId) {
+        lock.writeLock().lock();
+        try {
+            add(bookId, new Entry(reservationId, userId, false));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Mark a waiting reservation as a hold ready for pickup
+     */
+    public void markReady(Long bookId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            Queue queue = queues.get(bookId);
+            Entry entry = queue == null ? null : queue.entries.get(userId);
+            if (entry != null && !entry.ready()) {
+                queue.entries.put(userId, new Entry(entry.reservationId(), userId, true));
+                queue.readyCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop the user's reservation from the book's queue, if there is one
+     */
+    public void remove(Long bookId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            Queue queue = queues.get(bookId);
+            if (queue == null) {
+                return;
+            }
+            Entry removed = queue.entries.remove(userId);
+            if (removed != null && removed.ready()) {
+                queue.readyCount--;
+            }
+            if (queue.entries.isEmpty()) {
+                queues.remove(bookId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The user's open reservation for the book, wherever it is in the queue
+     */
+    public Optional<Entry> find(Long bookId, Long userId) {
+        if (!ready) {
+            return fromDatabase(bookId).stream().filter(e -> e.userId().equals(userId)).findFirst();
+        }
+        lock.readLock().lock();
+        try {
+            Queue queue = queues.get(bookId);
+            return Optional.ofNullable(queue == null ? null : queue.entries.get(userId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of copies of the book currently held for pickup
+     */
+    public int readyCount(Long bookId) {
+        if (!ready) {
+            return (int) fromDatabase(bookId).stream().filter(Entry::ready).count();
+        }
+        lock.readLock().lock();
+        try {
+            Queue queue = queues.get(bookId);
+            return queue == null ? 0 : queue.readyCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit reservations still waiting for a copy, oldest first
+     */
+    public List<Entry> waiting(Long bookId, int limit) {
+        if (!ready) {
+            return fromDatabase(bookId).stream().filter(e -> !e.ready()).limit(limit).toList();
+        }
+        lock.readLock().lock();
+        try {
+            List<Entry> waiting = new ArrayList<>();
+            Queue queue = queues.get(bookId);
+            if (queue != null) {
+                // Ready holds sit at the front, so skip straight past them
+                for (Entry entry : queue.entries.values()) {
+                    if (waiting.size() >= limit) {
+                        break;
+                    }
+                    if (!entry.ready()) {
+                        waiting.add(entry);
+                    }
+                }
+            }
+            return waiting;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Books with at least one reservation still waiting for a copy
+     */
+    public List<Long> booksWithWaiting() {
+        lock.readLock().lock();
+        try {
+            return queues.entrySet().stream()
+                    .filter(e -> e.getValue().entries.size() > e.getValue().readyCount)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size(Long bookId) {
+        if (!ready) {
+            return fromDatabase(bookId).size();
+        }
+        lock.readLock().lock();
+        try {
+            Queue queue = queues.get(bookId);
+            return queue == null ? 0 : queue.entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Long bookId, Entry entry) {
+        Queue queue = queues.computeIfAbsent(bookId, id -> new Queue());
+        if (queue.entries.putIfAbsent(entry.userId(), entry) == null && entry.ready()) {
+            queue.readyCount++;
+        }
+    }
+
+    private List<Entry> fromDatabase(Long bookId) {
+        return reservationRepository.findQueueEntriesByBook(bookId).stream()
+                .map(ReservationQueues::toEntry)
+                .toList();
+    }
+
+    private static Entry toEntry(Object[] row) {
+        return new Entry((Long) row[0], (Long) row[2], row[3] == Reservation.Status.READY);
+    }
+}
@@ -1,38 +1,277 @@
 package com.library.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.ReservationSummary;
 import com.library.entity.Book;
+import com.library.entity.OutboxEvent;
 import com.library.entity.Reservation;
 import com.library.entity.User;
+import com.library.repository.OutboxEventRepository;
 import com.library.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class ReservationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+
+    public static final String HOLD_READY = "HOLD_READY";
+    public static final String HOLD_EXPIRED = "HOLD_EXPIRED";
+
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ReservationQueues reservationQueues;
+
+    @Autowired
+    private HoldExpiryScheduler holdExpiryScheduler;
+
+    @Autowired
+    private BookLockManager bookLockManager;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${library.holds.pickup-window-minutes:2880}")
+    private long pickupWindowMinutes;
+
+    /**
+     * Load the reservation queues and re-arm the timers of holds that were waiting for
+     * pickup when the application stopped. Holds that lapsed meanwhile expire at once.
+     * Reservations left waiting although a copy is free, e.g. because the application
+     * stopped between a return and its promotion, become holds now.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreHolds() {
+        reservationQueues.rebuild();
+        for (Reservation hold : reservationRepository.findByStatus(Reservation.Status.READY)) {
+            scheduleExpiry(hold.getId(), hold.getBook().getId(), hold.getUser().getId(), hold.getReadyUntil());
+        }
+        for (Long bookId : reservationQueues.booksWithWaiting()) {
+            try {
+                promoteWaiting(bookId);
+            } catch (RuntimeException e) {
+                logger.error("Failed to promote waiting reservations for book {}", bookId, e);
+            }
+        }
+    }
+
+    /**
+     * Join the back of the book's queue. Runs under the book's lock so the queue sees
+     * reservations in the same order as borrows of that book. If a copy is free the new
+     * reservation becomes a pickup hold straight away.
+     */
     public Reservation reserve(User user, Book book) {
-        // Prevent duplicate active reservation
-        reservationRepository.findByUserAndBookAndStatus(user, book, Reservation.Status.ACTIVE)
-                .ifPresent(r -> { throw new RuntimeException("You already have an active reservation for this book"); });
+        return bookLockManager.withLock(book.getId(), () -> {
+            // Prevent duplicate active reservation
+            reservationQueues.find(book.getId(), user.getId())
+                    .ifPresent(r -> { throw new RuntimeException("You already have an active reservation for this book"); });
+
+            Reservation saved = transactionTemplate.execute(status -> {
+                Reservation reservation = reservationRepository.save(
+                        new Reservation(user, book, LocalDate.now(), Reservation.Status.ACTIVE));
+                eventPublisher.publishEvent(new LibraryEvents.ReservationsChanged(1));
+                eventPublisher.publishEvent(new LibraryEvents.BookReserved(user.getId(), user.getRole(), book.getCategory()));
+                return reservation;
+            });
+            reservationQueues.enqueue(book.getId(), user.getId(), saved.getId());
 
-        Reservation reservation = new Reservation(user, book, LocalDate.now(), Reservation.Status.ACTIVE);
-        return reservationRepository.save(reservation);
+            LocalDateTime readyUntil = promoteWaiting(book.getId()).get(saved.getId());
+            if (readyUntil != null) {
+                saved.setStatus(Reservation.Status.READY);
+                saved.setReadyUntil(readyUntil);
+            }
+            return saved;
+        });
     }
 
     public void cancel(User user, Book book) {
-        Reservation res = reservationRepository.findByUserAndBookAndStatus(user, book, Reservation.Status.ACTIVE)
-                .orElseThrow(() -> new RuntimeException("Active reservation not found"));
-        res.setStatus(Reservation.Status.CANCELLED);
-        reservationRepository.save(res);
+        bookLockManager.withLock(book.getId(), () -> {
+            ReservationQueues.Entry entry = reservationQueues.find(book.getId(), user.getId())
+                    .orElseThrow(() -> new RuntimeException("Active reservation not found"));
+            transactionTemplate.executeWithoutResult(status -> {
+                reservationRepository.updateStatus(List.of(entry.reservationId()),
+                        statusOf(entry), Reservation.Status.CANCELLED);
+                eventPublisher.publishEvent(new LibraryEvents.ReservationsChanged(-1));
+            });
+            reservationQueues.remove(book.getId(), user.getId());
+            if (entry.ready()) {
+                // The held copy goes to the next patron in line
+                holdExpiryScheduler.cancel(entry.reservationId());
+                bookService.holdsChanged(book.getId());
+                promoteWaiting(book.getId());
+            }
+            return null;
+        });
+    }
+
+    public List<ReservationSummary> list(User user) {
+        return reservationRepository.findSummariesByUserId(user.getId());
+    }
+
+    /**
+     * Decide whether the user may borrow the book given its free copies. A user holding a
+     * ready hold always may; otherwise there must be a copy not held for someone else and
+     * nobody ahead of the user waiting for one. Returns the user's reservation, which the
+     * borrow fulfils.
+     */
+    public Optional<ReservationQueues.Entry> claimForBorrow(Long bookId, Long userId, int availableCopies) {
+        Optional<ReservationQueues.Entry> own = reservationQueues.find(bookId, userId);
+        if (own.map(ReservationQueues.Entry::ready).orElse(false)) {
+            return own;
+        }
+        int free = availableCopies - reservationQueues.readyCount(bookId);
+        List<ReservationQueues.Entry> next = reservationQueues.waiting(bookId, 1);
+        if (free <= 0 || (!next.isEmpty() && !next.get(0).userId().equals(userId))) {
+            throw new RuntimeException("Book is reserved by another user");
+        }
+        return own;
+    }
+
+    /**
+     * Mark the claimed reservations fulfilled, inside the borrowing transaction
+     */
+    public void fulfil(List<ReservationQueues.Entry> claimed) {
+        List<Long> ready = claimed.stream().filter(ReservationQueues.Entry::ready).map(ReservationQueues.Entry::reservationId).toList();
+        List<Long> waiting = claimed.stream().filter(e -> !e.ready()).map(ReservationQueues.Entry::reservationId).toList();
+        if (!ready.isEmpty()) {
+            reservationRepository.updateStatus(ready, Reservation.Status.READY, Reservation.Status.FULFILLED);
+        }
+        if (!waiting.isEmpty()) {
+            reservationRepository.updateStatus(waiting, Reservation.Status.ACTIVE, Reservation.Status.FULFILLED);
+        }
+        if (!claimed.isEmpty()) {
+            eventPublisher.publishEvent(new LibraryEvents.ReservationsChanged(-claimed.size()));
+        }
+    }
+
+    /**
+     * Take a borrower's fulfilled reservation out of the queue once the borrow committed
+     */
+    public void borrowed(Long bookId, Long userId) {
+        reservationQueues.find(bookId, userId).ifPresent(entry -> {
+            reservationQueues.remove(bookId, userId);
+            holdExpiryScheduler.cancel(entry.reservationId());
+            if (entry.ready()) {
+                bookService.holdsChanged(bookId);
+            }
+        });
+    }
+
+    /**
+     * Turn waiting reservations into pickup holds while the book has copies that are not
+     * already held. Each promotion is written together with a HOLD_READY outbox event and
+     * arms the hold's expiry timer. Returns the promoted reservation ids with their
+     * pickup deadline.
+     */
+    public Map<Long, LocalDateTime> promoteWaiting(Long bookId) {
+        return bookLockManager.withLock(bookId, () -> {
+            int available = bookService.currentAvailability(List.of(bookId)).getOrDefault(bookId, 0);
+            int free = available - reservationQueues.readyCount(bookId);
+            List<ReservationQueues.Entry> next = free > 0 ? reservationQueues.waiting(bookId, free) : List.of();
+            if (next.isEmpty()) {
+                return Map.of();
+            }
+            LocalDateTime readyUntil = LocalDateTime.now().plusMinutes(pickupWindowMinutes);
+            List<ReservationQueues.Entry> promoted = transactionTemplate.execute(status -> {
+                List<ReservationQueues.Entry> done = new ArrayList<>();
+                for (ReservationQueues.Entry entry : next) {
+                    if (reservationRepository.markReady(entry.reservationId(), readyUntil) == 1) {
+                        outboxEventRepository.save(holdEvent(HOLD_READY, entry, bookId, readyUntil));
+                        done.add(entry);
+                    }
+                }
+                return done;
+            });
+
+            Map<Long, LocalDateTime> deadlines = new LinkedHashMap<>();
+            for (ReservationQueues.Entry entry : promoted) {
+                reservationQueues.markReady(bookId, entry.userId());
+                scheduleExpiry(entry.reservationId(), bookId, entry.userId(), readyUntil);
+                deadlines.put(entry.reservationId(), readyUntil);
+            }
+            if (!promoted.isEmpty()) {
+                bookService.holdsChanged(bookId);
+            }
+            return deadlines;
+        });
+    }
+
+    /**
+     * Called by the expiry timer: the hold lapses, the patron is told, and the copy moves
+     * on to the next reservation in line
+     */
+    void expire(Long reservationId, Long bookId, Long userId) {
+        bookLockManager.withLock(bookId, () -> {
+            Boolean expired = transactionTemplate.execute(status -> {
+                if (reservationRepository.updateStatus(List.of(reservationId),
+                        Reservation.Status.READY, Reservation.Status.EXPIRED) == 0) {
+                    return false;
+                }
+                outboxEventRepository.save(holdEvent(HOLD_EXPIRED,
+                        new ReservationQueues.Entry(reservationId, userId, true), bookId, null));
+                eventPublisher.publishEvent(new LibraryEvents.ReservationsChanged(-1));
+                return true;
+            });
+            if (Boolean.TRUE.equals(expired)) {
+                reservationQueues.remove(bookId, userId);
+                bookService.holdsChanged(bookId);
+                promoteWaiting(bookId);
+            }
+            return null;
+        });
+    }
+
+    private void scheduleExpiry(Long reservationId, Long bookId, Long userId, LocalDateTime readyUntil) {
+        holdExpiryScheduler.schedule(reservationId, readyUntil, () -> expire(reservationId, bookId, userId));
+    }
+
+    private OutboxEvent holdEvent(String type, ReservationQueues.Entry entry, Long bookId, LocalDateTime readyUntil) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("reservationId", entry.reservationId());
+        payload.put("bookId", bookId);
+        payload.put("userId", entry.userId());
+        if (readyUntil != null) {
+            payload.put("readyUntil", readyUntil.toString());
+        }
+        try {
+            return new OutboxEvent(type, entry.reservationId(), objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialise outbox event", e);
+        }
     }
 
-    public List<Reservation> list(User user) {
-        return reservationRepository.findByUserOrderByReservationDateDesc(user);
+    private static Reservation.Status statusOf(ReservationQueues.Entry entry) {
+        return entry.ready() ? Reservation.Status.READY : Reservation.Status.ACTIVE;
     }
 }
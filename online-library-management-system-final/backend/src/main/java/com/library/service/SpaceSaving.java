@@ -0,0 +1,74 @@
+package com.library.service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy-hitter sketch: counts at most {@code capacity} items. When a new item
+ * arrives and the sketch is full it takes over the smallest counter, inheriting its count
+ * as error, so frequent items are always kept and every count is an upper bound that
+ * overestimates by at most its error. Counters are kept ordered by count, so finding the
+ * smallest is O(log capacity). Not thread-safe; callers lock.
+ */
+public class SpaceSaving {
+
+    /**
+     * Estimated count of an item and how much of it may have been inherited from evicted items
+     */
+    public record Estimate(long count, long error) {}
+
+    private record Counter(Long item, long count, long error) {}
+
+    private static final Comparator<Counter> BY_COUNT =
+            Comparator.comparingLong(Counter::count).thenComparing(Counter::item);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public void offer(Long item, long weight) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            byCount.remove(counter);
+            put(new Counter(item, counter.count() + weight, counter.error()));
+            return;
+        }
+        if (counters.size() < capacity) {
+            put(new Counter(item, weight, 0));
+            return;
+        }
+        Counter smallest = byCount.pollFirst();
+        counters.remove(smallest.item());
+        put(new Counter(item, smallest.count() + weight, smallest.count()));
+    }
+
+    public void remove(Long item) {
+        Counter counter = counters.remove(item);
+        if (counter != null) {
+            byCount.remove(counter);
+        }
+    }
+
+    /**
+     * Estimated count and error of every tracked item
+     */
+    public Map<Long, Estimate> estimates() {
+        Map<Long, Estimate> estimates = new HashMap<>(counters.size());
+        counters.forEach((item, counter) -> estimates.put(item, new Estimate(counter.count(), counter.error())));
+        return estimates;
+    }
+
+    private void put(Counter counter) {
+        counters.put(counter.item(), counter);
+        byCount.add(counter);
+    }
+}
@@ -3,8 +3,10 @@ package com.library.service;
 import com.library.entity.User;
 import com.library.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,12 +20,18 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional
     public User register(String name, String email, String rawPassword, User.Role role) {
         if (userRepository.existsByEmail(email)) {
             throw new RuntimeException("Email already registered");
         }
         User user = new User(name, email, passwordEncoder.encode(rawPassword), role);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new LibraryEvents.UserRegistered(saved.getId()));
+        return saved;
     }
 
     public Optional<User> findByEmail(String email) {
@@ -50,7 +58,12 @@ public class UserService {
         }).orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    @Transactional
     public void deleteUser(Long id) {
+        if (!userRepository.existsById(id)) {
+            return;
+        }
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new LibraryEvents.UserDeleted(id));
     }
 }
@@ -0,0 +1,82 @@
+-- Base schema, matching the entity mappings (checked at startup with ddl-auto=validate)
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    email VARCHAR(255) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL CHECK (role IN ('USER', 'ADMIN')),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE books (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    title VARCHAR(255) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    isbn VARCHAR(255) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    available_copies INTEGER NOT NULL,
+    total_copies INTEGER NOT NULL,
+    cover_image_url VARCHAR(255),
+    price FLOAT(53),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_books_isbn UNIQUE (isbn)
+);
+
+CREATE TABLE borrow_records (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    borrow_date DATE NOT NULL,
+    return_date DATE,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('BORROWED', 'RETURNED', 'OVERDUE')),
+    fine_amount NUMERIC(10, 2),
+    fine_paid BOOLEAN NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_borrow_records_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_borrow_records_book FOREIGN KEY (book_id) REFERENCES books (id)
+);
+
+CREATE TABLE reservations (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    reservation_date DATE NOT NULL,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('ACTIVE', 'READY', 'FULFILLED', 'CANCELLED', 'EXPIRED')),
+    ready_until TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reservations_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_reservations_book FOREIGN KEY (book_id) REFERENCES books (id)
+);
+
+CREATE TABLE outbox_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    event_type VARCHAR(255) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload VARCHAR(2000) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    processed_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+-- Indexes, one per repository access path
+
+-- open loans of a user, optionally for given books; covers the per-user count
+CREATE INDEX idx_borrow_records_user_status_book ON borrow_records (user_id, status, book_id);
+-- borrow history, newest first
+CREATE INDEX idx_borrow_records_user_date ON borrow_records (user_id, borrow_date);
+-- history of a book; covers borrow counts per book
+CREATE INDEX idx_borrow_records_book_date ON borrow_records (book_id, borrow_date);
+-- overdue loans and fine accrual per borrow date; covers open loan counts per date
+CREATE INDEX idx_borrow_records_status_date ON borrow_records (status, borrow_date);
+
+-- queue of one book in reservation order; covering
+CREATE INDEX idx_reservations_book_status_date ON reservations (book_id, status, reservation_date, user_id);
+-- all open queues at startup and ready holds; covering
+CREATE INDEX idx_reservations_status_date ON reservations (status, reservation_date, book_id, user_id);
+-- reservations of a user, newest first
+CREATE INDEX idx_reservations_user_date ON reservations (user_id, reservation_date);
+
+-- pending events in id order; covers the pending count
+CREATE INDEX idx_outbox_events_pending ON outbox_events (processed_at, id);
@@ -0,0 +1,17 @@
+-- Pre-aggregated circulation counts per hour and per day, by activity, book category and user role
+
+CREATE TABLE circulation_rollups (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    granularity VARCHAR(255) NOT NULL CHECK (granularity IN ('HOUR', 'DAY')),
+    bucket_start TIMESTAMP(6) NOT NULL,
+    activity VARCHAR(255) NOT NULL CHECK (activity IN ('BORROW', 'RETURN', 'RESERVE')),
+    category VARCHAR(255) NOT NULL,
+    user_role VARCHAR(255) NOT NULL CHECK (user_role IN ('USER', 'ADMIN')),
+    event_count BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    -- one row per bucket; serves range reads and the incremental updates
+    CONSTRAINT uk_circulation_rollups_bucket UNIQUE (granularity, bucket_start, activity, category, user_role)
+);
+
+-- returns per day for the rollup backfill
+CREATE INDEX idx_borrow_records_return_date ON borrow_records (return_date);
@@ -0,0 +1,78 @@
+-- Base schema, matching the entity mappings (checked at startup with ddl-auto=validate).
+-- Indexes are declared inline so InnoDB uses them for the foreign keys instead of adding its own.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role ENUM('USER', 'ADMIN') NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE books (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    isbn VARCHAR(255) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    available_copies INTEGER NOT NULL,
+    total_copies INTEGER NOT NULL,
+    cover_image_url VARCHAR(255),
+    price FLOAT(53),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_books_isbn UNIQUE (isbn)
+) ENGINE = InnoDB;
+
+CREATE TABLE borrow_records (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    borrow_date DATE NOT NULL,
+    return_date DATE,
+    status ENUM('BORROWED', 'RETURNED', 'OVERDUE') NOT NULL,
+    fine_amount DECIMAL(10, 2),
+    fine_paid BIT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_borrow_records_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_borrow_records_book FOREIGN KEY (book_id) REFERENCES books (id),
+    -- open loans of a user, optionally for given books; covers the per-user count
+    INDEX idx_borrow_records_user_status_book (user_id, status, book_id),
+    -- borrow history, newest first
+    INDEX idx_borrow_records_user_date (user_id, borrow_date),
+    -- history of a book; covers borrow counts per book
+    INDEX idx_borrow_records_book_date (book_id, borrow_date),
+    -- overdue loans and fine accrual per borrow date; covers open loan counts per date
+    INDEX idx_borrow_records_status_date (status, borrow_date)
+) ENGINE = InnoDB;
+
+CREATE TABLE reservations (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    reservation_date DATE NOT NULL,
+    status ENUM('ACTIVE', 'READY', 'FULFILLED', 'CANCELLED', 'EXPIRED') NOT NULL,
+    ready_until DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reservations_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_reservations_book FOREIGN KEY (book_id) REFERENCES books (id),
+    -- queue of one book in reservation order; covering
+    INDEX idx_reservations_book_status_date (book_id, status, reservation_date, user_id),
+    -- all open queues at startup and ready holds; covering
+    INDEX idx_reservations_status_date (status, reservation_date, book_id, user_id),
+    -- reservations of a user, newest first
+    INDEX idx_reservations_user_date (user_id, reservation_date)
+) ENGINE = InnoDB;
+
+CREATE TABLE outbox_events (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    event_type VARCHAR(255) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload VARCHAR(2000) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    processed_at DATETIME(6),
+    PRIMARY KEY (id),
+    -- pending events in id order; covers the pending count
+    INDEX idx_outbox_events_pending (processed_at, id)
+) ENGINE = InnoDB;
@@ -0,0 +1,17 @@
+-- Pre-aggregated circulation counts per hour and per day, by activity, book category and user role
+
+CREATE TABLE circulation_rollups (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    granularity ENUM('HOUR', 'DAY') NOT NULL,
+    bucket_start DATETIME(6) NOT NULL,
+    activity ENUM('BORROW', 'RETURN', 'RESERVE') NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    user_role ENUM('USER', 'ADMIN') NOT NULL,
+    event_count BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    -- one row per bucket; serves range reads and the incremental updates
+    CONSTRAINT uk_circulation_rollups_bucket UNIQUE (granularity, bucket_start, activity, category, user_role)
+) ENGINE = InnoDB;
+
+-- returns per day for the rollup backfill
+CREATE INDEX idx_borrow_records_return_date ON borrow_records (return_date);
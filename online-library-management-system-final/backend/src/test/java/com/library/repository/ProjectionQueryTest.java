@@ -0,0 +1,97 @@
+package com.library.repository;
+
+import com.library.dto.LoanSummary;
+import com.library.dto.ReservationSummary;
+import com.library.entity.Book;
+import com.library.entity.BorrowRecord;
+import com.library.entity.Reservation;
+import com.library.entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The summary queries read only the columns their DTOs show, in a single statement, and
+ * never load the user or book entities behind a loan or reservation
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.library.repository.RepositoryIndexUsageTest$CapturedSql")
+class ProjectionQueryTest {
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Projection Test", "projection@plan.test", "password", User.Role.USER));
+        Book book = bookRepository.save(new Book("Projection Test", "Author", "978-0-000-00003-5", "Testing", 1, 1));
+        borrowRecordRepository.save(new BorrowRecord(user, book, LocalDate.now(), BorrowRecord.Status.BORROWED));
+        reservationRepository.save(new Reservation(user, book, LocalDate.now(), Reservation.Status.ACTIVE));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void loanSummariesSelectOnlyTheirColumns() {
+        List<LoanSummary> loans = selectedOnce(() -> borrowRecordRepository.findLoanSummariesByUserId(user.getId()),
+                "id", "book_id", "title", "author", "price", "borrow_date", "return_date", "status", "fine_amount", "fine_paid");
+        assertThat(loans).singleElement().satisfies(loan -> {
+            assertThat(loan.getBook().getTitle()).isEqualTo("Projection Test");
+            assertThat(loan.getStatus()).isEqualTo(BorrowRecord.Status.BORROWED);
+        });
+
+        selectedOnce(() -> borrowRecordRepository.findLoanSummariesByStatus(BorrowRecord.Status.BORROWED),
+                "id", "book_id", "title", "author", "price", "borrow_date", "return_date", "status", "fine_amount", "fine_paid");
+    }
+
+    @Test
+    void reservationSummariesSelectOnlyTheirColumns() {
+        List<ReservationSummary> reservations = selectedOnce(() -> reservationRepository.findSummariesByUserId(user.getId()),
+                "id", "book_id", "title", "author", "price", "reservation_date", "status", "ready_until");
+        assertThat(reservations).singleElement()
+                .satisfies(reservation -> assertThat(reservation.getBook().getAuthor()).isEqualTo("Author"));
+    }
+
+    /**
+     * Run the query and check it issued one statement whose select list is exactly the
+     * given columns, in order, joined to books but not to users
+     */
+    private <T> T selectedOnce(Supplier<T> query, String... columns) {
+        RepositoryIndexUsageTest.CapturedSql.statements.clear();
+        T result = query.get();
+        assertThat(RepositoryIndexUsageTest.CapturedSql.statements).as("statements issued").hasSize(1);
+
+        String sql = RepositoryIndexUsageTest.CapturedSql.statements.get(0).toLowerCase(Locale.ROOT);
+        String selectList = sql.substring(sql.indexOf("select") + "select".length(), sql.indexOf(" from "));
+        List<String> selected = Arrays.stream(selectList.split(","))
+                .map(column -> column.trim().replaceFirst("^\\w+\\.", ""))
+                .toList();
+        assertThat(selected).as("columns of %s", sql).containsExactly(columns);
+        assertThat(sql).contains("join books").doesNotContain("users");
+        return result;
+    }
+}
@@ -0,0 +1,149 @@
+package com.library.repository;
+
+import com.library.entity.Book;
+import com.library.entity.BorrowRecord;
+import com.library.entity.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Flyway migrations on H2, captures the SQL Hibernate generates for each key
+ * repository query and checks with EXPLAIN that H2 plans it on the index it was built for
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.library.repository.RepositoryIndexUsageTest$CapturedSql")
+class RepositoryIndexUsageTest {
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Book book;
+
+    /** Records every statement Hibernate prepares */
+    public static class CapturedSql implements StatementInspector {
+        private static final long serialVersionUID = 1L;
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Index Test", "index@plan.test", "password", User.Role.USER));
+        book = bookRepository.save(new Book("Index Test", "Author", "978-0-000-00002-8", "Testing", 1, 1));
+    }
+
+    @Test
+    void openLoansOfAUserUseTheUserStatusBookIndex() {
+        assertPlanUses("idx_borrow_records_user_status_book",
+                () -> borrowRecordRepository.findActiveByUserAndBook(user, book));
+        assertPlanUses("idx_borrow_records_user_status_book",
+                () -> borrowRecordRepository.findActiveByUserAndBookIds(user, List.of(book.getId(), 2L)));
+        assertPlanUses("idx_borrow_records_user_status_book",
+                () -> borrowRecordRepository.countActiveBooksByUser(user));
+    }
+
+    /**
+     * H2 gives every foreign key its own index on exactly its columns and, for a lookup on
+     * that column alone, always plans on the narrower index; it never matches an ORDER BY
+     * past an equality column either. The date indexes serve these queries on MySQL,
+     * where the foreign keys reuse them.
+     */
+    @Test
+    void historiesUseTheForeignKeyIndexesOnH2() {
+        assertPlanUses("fk_borrow_records_user_index",
+                () -> borrowRecordRepository.findLoanSummariesByUserId(user.getId()));
+        assertPlanUses("fk_borrow_records_book_index",
+                () -> borrowRecordRepository.findByBookOrderByBorrowDateDesc(book));
+    }
+
+
+    @Test
+    void overdueAndFineQueriesUseTheStatusDateIndex() {
+        assertPlanUses("idx_borrow_records_status_date",
+                () -> borrowRecordRepository.findLoanSummariesByStatus(BorrowRecord.Status.OVERDUE));
+        assertPlanUses("idx_borrow_records_status_date",
+                () -> borrowRecordRepository.countOpenByBorrowDate());
+        assertPlanUses("idx_borrow_records_status_date",
+                () -> borrowRecordRepository.accrueFine(LocalDate.now(), BigDecimal.ONE));
+    }
+
+    @Test
+    void returnRollupsUseTheReturnDateIndex() {
+        assertPlanUses("idx_borrow_records_return_date",
+                () -> borrowRecordRepository.countReturnsByDayCategoryRole(LocalDate.now().minusDays(1), LocalDate.now()));
+    }
+
+    @Test
+    void reservationQueriesUseTheirIndexes() {
+        assertPlanUses("idx_reservations_book_status_date",
+                () -> reservationRepository.findQueueEntriesByBook(book.getId()));
+        assertPlanUses("idx_reservations_status_date",
+                () -> reservationRepository.findQueueEntries());
+        assertPlanUses("fk_reservations_user_index",
+                () -> reservationRepository.findSummariesByUserId(user.getId()));
+    }
+
+    @Test
+    void pendingOutboxEventsUseThePendingIndex() {
+        assertPlanUses("idx_outbox_events_pending",
+                () -> outboxEventRepository.findByProcessedAtIsNullOrderByIdAsc(Limit.of(100)));
+    }
+
+    /**
+     * Run the repository call, then EXPLAIN the last statement it issued with every
+     * parameter unbound, so the plan cannot depend on particular values
+     */
+    private void assertPlanUses(String index, Runnable query) {
+        CapturedSql.statements.clear();
+        query.run();
+        assertThat(CapturedSql.statements).as("SQL issued by the query").isNotEmpty();
+        String sql = CapturedSql.statements.get(CapturedSql.statements.size() - 1);
+        int parameters = (int) sql.chars().filter(c -> c == '?').count();
+        String plan = jdbcTemplate.query("EXPLAIN " + sql, ps -> {
+            for (int i = 1; i <= parameters; i++) {
+                ps.setObject(i, null);
+            }
+        }, rs -> {
+            StringBuilder lines = new StringBuilder();
+            while (rs.next()) {
+                lines.append(rs.getString(1)).append('\n');
+            }
+            return lines.toString();
+        });
+        assertThat(plan).as("plan of %s", sql).containsIgnoringCase(index);
+    }
+}
@@ -0,0 +1,63 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Books with a free copy: copies held for pickup do not count, and the bitmap follows
+ * borrows, returns, holds and deletes
+ */
+class AvailabilityBitmapTest {
+
+    @Test
+    void rebuildCountsOnlyCopiesThatAreNotHeld() {
+        AvailabilityBitmap bitmap = new AvailabilityBitmap();
+        bitmap.rebuild(List.of(book(1L, 2), book(2L, 0), book(3L, 2), book(4L, 1)), Map.of(3L, 2, 4L, 0));
+
+        assertThat(bitmap.ids()).containsExactly(1L, 4L);
+        assertThat(bitmap.count()).isEqualTo(2);
+        assertThat(bitmap.contains(3L)).isFalse();
+    }
+
+    @Test
+    void followsAvailabilityChanges() {
+        AvailabilityBitmap bitmap = new AvailabilityBitmap();
+        bitmap.rebuild(List.of(book(1L, 1), book(2L, 1)), Map.of());
+
+        bitmap.apply(book(1L, 0), 0);
+        bitmap.apply(book(3L, 2), 0);
+        assertThat(bitmap.ids()).containsExactly(2L, 3L);
+
+        // Both copies of book 3 go on hold, then one is released
+        bitmap.apply(book(3L, 2), 2);
+        assertThat(bitmap.contains(3L)).isFalse();
+        bitmap.apply(book(3L, 2), 1);
+        assertThat(bitmap.contains(3L)).isTrue();
+
+        bitmap.remove(2L);
+        assertThat(bitmap.ids()).containsExactly(3L);
+    }
+
+    @Test
+    void intersectsWithOtherIdSetsInAscendingOrder() {
+        AvailabilityBitmap bitmap = new AvailabilityBitmap();
+        bitmap.rebuild(List.of(book(70_000L, 1), book(5L, 1), book(9L, 0), book(200_000L, 1)), Map.of());
+        IdBitmap category = new IdBitmap();
+        category.add(200_000L);
+        category.add(9L);
+        category.add(5L);
+
+        assertThat(bitmap.and(category)).containsExactly(5L, 200_000L);
+    }
+
+    private static Book book(Long id, int available) {
+        Book book = new Book("Book " + id, "Author", "isbn-" + id, "Fiction", available, 2);
+        book.setId(id);
+        return book;
+    }
+}
@@ -0,0 +1,86 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Typo-tolerant scoring: allowed edit distances, field weights, multi-word queries and
+ * keeping the term dictionary in step with catalog changes
+ */
+class BookFuzzyIndexTest {
+
+    private BookFuzzyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookFuzzyIndex();
+        index.rebuild(List.of(book(1L, "Dune", "Frank Herbert", "Science Fiction"),
+                book(2L, "Herbert West Reanimator", "H. P. Lovecraft", "Horror"),
+                book(3L, "Foundation", "Isaac Asimov", "Science Fiction")));
+    }
+
+    @Test
+    void exactMatchesScoreTheirFieldWeight() {
+        Map<Long, Double> scores = index.score("herbert");
+
+        assertThat(scores).containsOnlyKeys(1L, 2L);
+        assertThat(scores.get(2L)).isEqualTo(BookFuzzyIndex.TITLE_WEIGHT);
+        assertThat(scores.get(1L)).isEqualTo(BookFuzzyIndex.AUTHOR_WEIGHT);
+        assertThat(index.score("science")).containsEntry(1L, (double) BookFuzzyIndex.CATEGORY_WEIGHT)
+                .containsEntry(3L, (double) BookFuzzyIndex.CATEGORY_WEIGHT);
+    }
+
+    @Test
+    void typosAreDiscountedByDistanceAndBoundedByWordLength() {
+        // Up to 6 letters one edit is allowed, from 7 letters two
+        assertThat(index.score("dume").get(1L)).isCloseTo(BookFuzzyIndex.TITLE_WEIGHT / 2.0, within(1e-9));
+        assertThat(index.score("dnue")).containsKey(1L);
+        assertThat(index.score("foundatoin").get(3L)).isCloseTo(BookFuzzyIndex.TITLE_WEIGHT / 2.0, within(1e-9));
+        assertThat(index.score("fuondatoin").get(3L)).isCloseTo(BookFuzzyIndex.TITLE_WEIGHT / 3.0, within(1e-9));
+        assertThat(index.score("dmeu")).isEmpty();
+        // Words of three letters or fewer must match exactly
+        assertThat(index.score("dun")).isEmpty();
+    }
+
+    @Test
+    void everyWordOfTheQueryAddsToTheScore() {
+        Map<Long, Double> scores = index.score("dune herbert");
+
+        assertThat(scores.get(1L)).isEqualTo(BookFuzzyIndex.TITLE_WEIGHT + BookFuzzyIndex.AUTHOR_WEIGHT);
+        assertThat(scores.get(2L)).isEqualTo(BookFuzzyIndex.TITLE_WEIGHT);
+    }
+
+    @Test
+    void followsCatalogChanges() {
+        index.index(book(4L, "Dracula", "Bram Stoker", "Horror"));
+        assertThat(index.score("dracula")).containsOnlyKeys(4L);
+
+        index.index(book(4L, "Carmilla", "Sheridan Le Fanu", "Horror"));
+        assertThat(index.score("dracula")).isEmpty();
+        assertThat(index.score("carmila")).containsOnlyKeys(4L);
+
+        index.remove(2L);
+        assertThat(index.score("reanimator")).isEmpty();
+        assertThat(index.score("herbert")).containsOnlyKeys(1L);
+    }
+
+    @Test
+    void distanceCountsAdjacentTranspositionsAsOneEdit() {
+        assertThat(BookFuzzyIndex.distance("dune", "dnue", 2)).isEqualTo(1);
+        assertThat(BookFuzzyIndex.distance("dune", "dunes", 2)).isEqualTo(1);
+        assertThat(BookFuzzyIndex.distance("dune", "emma", 2)).isEqualTo(3);
+    }
+
+    private static Book book(Long id, String title, String author, String category) {
+        Book book = new Book(title, author, "isbn-" + id, category, 1, 1);
+        book.setId(id);
+        return book;
+    }
+}
@@ -0,0 +1,93 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The startup index build must not lose a book created while it reads the catalog
+ */
+class BookIndexBuildTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+    private final CatalogVersion catalogVersion = new CatalogVersion();
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    private final BookSuggestIndex suggestIndex = new BookSuggestIndex();
+    private final BookFuzzyIndex fuzzyIndex = new BookFuzzyIndex();
+    private final CategoryFacets categoryFacets = new CategoryFacets();
+    private final AvailabilityBitmap availabilityBitmap = new AvailabilityBitmap();
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        BorrowPopularity popularity = new BorrowPopularity();
+        ReflectionTestUtils.setField(popularity, "topK", 50);
+        ReflectionTestUtils.setField(popularity, "windowCapacity", 200);
+        ReflectionTestUtils.setField(suggestIndex, "borrowPopularity", popularity);
+
+        bookService = new BookService();
+        ReflectionTestUtils.setField(bookService, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(bookService, "reservationRepository", reservationRepository);
+        ReflectionTestUtils.setField(bookService, "catalogVersion", catalogVersion);
+        ReflectionTestUtils.setField(bookService, "searchIndex", searchIndex);
+        ReflectionTestUtils.setField(bookService, "suggestIndex", suggestIndex);
+        ReflectionTestUtils.setField(bookService, "fuzzyIndex", fuzzyIndex);
+        ReflectionTestUtils.setField(bookService, "categoryFacets", categoryFacets);
+        ReflectionTestUtils.setField(bookService, "availabilityBitmap", availabilityBitmap);
+        when(reservationRepository.countHoldsByBook()).thenReturn(List.of());
+    }
+
+    @Test
+    void aQuietCatalogIsReadOnce() {
+        when(bookRepository.findAll()).thenReturn(List.of(book(1L, "Dune")));
+
+        bookService.buildIndexes();
+
+        verify(bookRepository, times(1)).findAll();
+        assertThat(searchIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    void aBookCreatedDuringTheBuildIsKept() {
+        Book created = book(2L, "Dracula");
+        when(bookRepository.findAll())
+                .thenAnswer(invocation -> {
+                    // The create commits after this read and indexes itself before the rebuild wipes the indexes
+                    catalogVersion.bump();
+                    searchIndex.index(created);
+                    suggestIndex.index(created);
+                    fuzzyIndex.index(created);
+                    categoryFacets.apply(created, 0);
+                    availabilityBitmap.apply(created, 0);
+                    return List.of(book(1L, "Dune"));
+                })
+                .thenReturn(List.of(book(1L, "Dune"), created));
+
+        bookService.buildIndexes();
+
+        verify(bookRepository, times(2)).findAll();
+        assertThat(searchIndex.search("dracula")).extracting(Book::getId).containsExactly(2L);
+        assertThat(suggestIndex.suggest("dra", 10)).hasSize(1);
+        assertThat(fuzzyIndex.score("dracula")).containsOnlyKeys(2L);
+        assertThat(availabilityBitmap.ids()).containsExactly(1L, 2L);
+        assertThat(categoryFacets.facets()).singleElement().satisfies(facet -> assertThat(facet.getBookCount()).isEqualTo(2));
+    }
+
+    private static Book book(Long id, String title) {
+        Book book = new Book(title, "Author", "isbn-" + id, "Fiction", 1, 1);
+        book.setId(id);
+        return book;
+    }
+}
@@ -0,0 +1,82 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Substring search over the trigram index: matching on every field, id order, catalog
+ * changes, and isolation from the books it is given and hands out
+ */
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.rebuild(List.of(book(3L, "Dune", "Frank Herbert", "Science Fiction"),
+                book(1L, "Dune Messiah", "Frank Herbert", "Science Fiction"),
+                book(2L, "Emma", "Jane Austen", "Classic Fiction"),
+                book(4L, "The Hobbit", "J. R. R. Tolkien", "Fantasy")));
+    }
+
+    @Test
+    void matchesTitleAuthorAndCategoryCaseInsensitivelyInIdOrder() {
+        assertThat(ids(index.search("DUNE"))).containsExactly(1L, 3L);
+        assertThat(ids(index.search("herb"))).containsExactly(1L, 3L);
+        assertThat(ids(index.search("fiction"))).containsExactly(1L, 2L, 3L);
+        assertThat(ids(index.search("bbit"))).containsExactly(4L);
+        assertThat(index.search("dune emma")).isEmpty();
+    }
+
+    @Test
+    void keywordsShorterThanAGramAreScannedAndBlankMatchesEverything() {
+        assertThat(ids(index.search("em"))).containsExactly(2L);
+        assertThat(ids(index.search(""))).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void followsCatalogChanges() {
+        index.index(book(5L, "Dracula", "Bram Stoker", "Horror"));
+        assertThat(ids(index.search("racul"))).containsExactly(5L);
+
+        index.index(book(5L, "Carmilla", "Sheridan Le Fanu", "Horror"));
+        assertThat(index.search("racul")).isEmpty();
+        assertThat(ids(index.search("carm"))).containsExactly(5L);
+
+        index.remove(3L);
+        assertThat(ids(index.search("dune"))).containsExactly(1L);
+        assertThat(index.get(3L)).isNull();
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void keepsItsOwnCopies() {
+        Book given = book(6L, "Solaris", "Stanislaw Lem", "Science Fiction");
+        index.index(given);
+        given.setTitle("Changed Outside");
+        index.search("solaris").get(0).setAvailableCopies(0);
+        index.get(6L).setCategory("Changed Too");
+
+        Book stored = index.get(6L);
+        assertThat(stored.getTitle()).isEqualTo("Solaris");
+        assertThat(stored.getAvailableCopies()).isEqualTo(1);
+        assertThat(stored.getCategory()).isEqualTo("Science Fiction");
+        assertThat(index.search("changed")).isEmpty();
+    }
+
+    private static Book book(Long id, String title, String author, String category) {
+        Book book = new Book(title, author, "isbn-" + id, category, 1, 1);
+        book.setId(id);
+        return book;
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+}
@@ -0,0 +1,106 @@
+package com.library.service;
+
+import com.library.dto.BookSuggestion;
+import com.library.entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prefix suggestions: ranking, the bounded scan of broad prefixes, and keeping the
+ * dictionary in step with catalog changes
+ */
+class BookSuggestIndexTest {
+
+    private BorrowPopularity popularity;
+    private BookSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        popularity = new BorrowPopularity();
+        ReflectionTestUtils.setField(popularity, "topK", 50);
+        ReflectionTestUtils.setField(popularity, "windowCapacity", 200);
+        index = new BookSuggestIndex();
+        ReflectionTestUtils.setField(index, "borrowPopularity", popularity);
+    }
+
+    @Test
+    void ranksByBorrowCountThenBookId() {
+        index.rebuild(List.of(book(1L, "Dune", "Frank Herbert"), book(2L, "Dune Messiah", "Frank Herbert"),
+                book(3L, "Dust", "Hugh Howey"), book(4L, "Duel", "Richard Matheson"), book(5L, "Emma", "Jane Austen")));
+        borrow(2L);
+        borrow(2L);
+        borrow(3L);
+
+        assertThat(ids(index.suggest("Du", 10))).containsExactly(2L, 3L, 1L, 4L);
+        assertThat(ids(index.suggest("du", 2))).containsExactly(2L, 3L);
+        // Author words are terms too
+        assertThat(ids(index.suggest("herb", 10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void broadPrefixStillFindsPopularBooksPastTheScanLimit() {
+        List<Book> books = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            books.add(book(id, "Aardvark " + id, "Anon"));
+        }
+        books.add(book(5000L, "Azure Skies", "Zed"));
+        index.rebuild(books);
+        borrow(5000L);
+        borrow(2999L);
+
+        // Short prefixes read their list, longer ones merge the top K with the capped scan
+        assertThat(ids(index.suggest("a", 5))).containsExactly(2999L, 5000L, 1L, 2L, 3L);
+        assertThat(ids(index.suggest("aard", 3))).containsExactly(2999L, 1L, 2L);
+        assertThat(ids(index.suggest("azure", 3))).containsExactly(5000L);
+    }
+
+    @Test
+    void shortPrefixListIsRefilledWhenAListedBookGoes() {
+        List<Book> books = new ArrayList<>();
+        for (long id = 1; id <= BookSuggestIndex.MAX_SUGGESTIONS + 5; id++) {
+            books.add(book(id, "Saga " + id, "Anon"));
+        }
+        index.rebuild(books);
+        borrow(25L);
+
+        assertThat(ids(index.suggest("sa", 20))).startsWith(25L, 1L).doesNotContain(20L);
+
+        index.remove(1L);
+        assertThat(ids(index.suggest("sa", 20))).startsWith(25L, 2L).contains(20L).doesNotContain(1L);
+    }
+
+    @Test
+    void followsCatalogChanges() {
+        index.rebuild(List.of(book(1L, "Dune", "Frank Herbert")));
+        index.index(book(2L, "Dracula", "Bram Stoker"));
+        assertThat(ids(index.suggest("dr", 10))).containsExactly(2L);
+
+        index.index(book(2L, "Carmilla", "Sheridan Le Fanu"));
+        assertThat(index.suggest("dr", 10)).isEmpty();
+        assertThat(ids(index.suggest("carm", 10))).containsExactly(2L);
+
+        index.remove(1L);
+        assertThat(index.suggest("dune", 10)).isEmpty();
+    }
+
+    private void borrow(Long id) {
+        popularity.recordBorrow(id);
+        index.borrowed(id);
+    }
+
+    private static Book book(Long id, String title, String author) {
+        Book book = new Book(title, author, "isbn-" + id, "Fiction", 1, 1);
+        book.setId(id);
+        return book;
+    }
+
+    private static List<Long> ids(List<BookSuggestion> suggestions) {
+        return suggestions.stream().map(BookSuggestion::getId).toList();
+    }
+}
@@ -0,0 +1,82 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.entity.User;
+import com.library.repository.BookRepository;
+import com.library.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many patrons borrowing the last copies of one book at the same moment, against the
+ * H2 database migrated by Flyway
+ */
+@SpringBootTest
+class BorrowConcurrencyTest {
+
+    private static final int BORROWERS = 64;
+    private static final int COPIES = 5;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void parallelBorrowsNeverHandOutMoreCopiesThanExist() throws Exception {
+        Book book = bookService.create(new Book("Concurrency in Practice", "Test Author",
+                "978-0-000-00001-1", "Testing", COPIES, COPIES));
+        List<User> borrowers = new ArrayList<>();
+        for (int i = 0; i < BORROWERS; i++) {
+            borrowers.add(userRepository.save(new User("Borrower " + i, "borrower" + i + "@concurrency.test",
+                    "password", User.Role.USER)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(BORROWERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (User borrower : borrowers) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    borrowService.borrowBook(borrower, bookService.getById(book.getId()).orElseThrow());
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    refused.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(succeeded.get()).isEqualTo(COPIES);
+        assertThat(refused.get()).isEqualTo(BORROWERS - COPIES);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isZero();
+    }
+}
@@ -0,0 +1,77 @@
+package com.library.service;
+
+import com.library.dto.CategoryFacet;
+import com.library.entity.Book;
+import com.library.entity.Reservation;
+import com.library.entity.User;
+import com.library.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A copy held for a reservation stays on the shelf but is not offered to anyone else,
+ * so the "available" views leave it out until the hold is borrowed, cancelled or expires
+ */
+@SpringBootTest
+class HoldAvailabilityTest {
+
+    private static final String CATEGORY = "Hold Testing";
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void heldCopiesAreNotAvailable() {
+        Book book = bookService.create(new Book("The Held Copy", "Test Author", "978-0-000-00004-2", CATEGORY, 1, 1));
+        User reader = userRepository.save(new User("Reader", "reader@holds.test", "password", User.Role.USER));
+        User patron = userRepository.save(new User("Patron", "patron@holds.test", "password", User.Role.USER));
+        assertAvailable(book, true);
+
+        borrowService.borrowBook(reader, current(book));
+        Reservation reservation = reservationService.reserve(patron, current(book));
+        assertThat(reservation.getStatus()).isEqualTo(Reservation.Status.ACTIVE);
+        assertAvailable(book, false);
+
+        // The returned copy becomes the patron's hold: on the shelf, yet not available
+        borrowService.returnBook(reader, current(book));
+        assertThat(current(book).getAvailableCopies()).isEqualTo(1);
+        assertAvailable(book, false);
+
+        reservationService.cancel(patron, current(book));
+        assertAvailable(book, true);
+
+        // A hold taken straight away on reserving, then borrowed by its patron
+        reservationService.reserve(patron, current(book));
+        assertAvailable(book, false);
+        borrowService.borrowBook(patron, current(book));
+        assertAvailable(book, false);
+        borrowService.returnBook(patron, current(book));
+        assertAvailable(book, true);
+    }
+
+    private void assertAvailable(Book book, boolean available) {
+        assertThat(bookService.available(CATEGORY)).extracting(Book::getId)
+                .as("available books").containsExactlyElementsOf(available ? List.of(book.getId()) : List.of());
+        assertThat(bookService.search("The Held Copy", true)).as("available search hits").hasSize(available ? 1 : 0);
+        assertThat(bookService.facets()).filteredOn(f -> f.getCategory().equals(CATEGORY))
+                .extracting(CategoryFacet::getAvailableCopies).as("available copies facet").containsExactly(available ? 1L : 0L);
+    }
+
+    private Book current(Book book) {
+        return bookService.getById(book.getId()).orElseThrow();
+    }
+}
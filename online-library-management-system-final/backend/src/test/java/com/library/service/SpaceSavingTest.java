@@ -0,0 +1,81 @@
+package com.library.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heavy-hitter sketch: exact below capacity, evicts the smallest counter and reports the
+ * inherited count as error once full
+ */
+class SpaceSavingTest {
+
+    @Test
+    void countsExactlyWhileBelowCapacity() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        sketch.offer(1L, 5);
+        sketch.offer(2L, 1);
+        sketch.offer(1L, 2);
+
+        assertThat(sketch.estimates()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                1L, new SpaceSaving.Estimate(7, 0),
+                2L, new SpaceSaving.Estimate(1, 0)));
+    }
+
+    @Test
+    void newItemTakesOverTheSmallestCounter() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        sketch.offer(1L, 10);
+        sketch.offer(2L, 3);
+        sketch.offer(3L, 6);
+        sketch.offer(4L, 1);
+
+        Map<Long, SpaceSaving.Estimate> estimates = sketch.estimates();
+        assertThat(estimates).doesNotContainKey(2L);
+        assertThat(estimates.get(4L)).isEqualTo(new SpaceSaving.Estimate(4, 3));
+
+        // The next eviction picks the now smallest counter, 4 at count 4
+        sketch.offer(5L, 1);
+        estimates = sketch.estimates();
+        assertThat(estimates).containsOnlyKeys(1L, 3L, 5L);
+        assertThat(estimates.get(5L)).isEqualTo(new SpaceSaving.Estimate(5, 4));
+    }
+
+    @Test
+    void heavyHittersSurviveAndStayWithinTheirError() {
+        SpaceSaving sketch = new SpaceSaving(10);
+        long[] truth = new long[101];
+        for (int round = 0; round < 50; round++) {
+            for (long item = 1; item <= 3; item++) {
+                sketch.offer(item, 1);
+                truth[(int) item]++;
+            }
+            for (long item = 4 + round % 97; item < 6 + round % 97; item++) {
+                sketch.offer(item, 1);
+                truth[(int) item]++;
+            }
+        }
+
+        Map<Long, SpaceSaving.Estimate> estimates = sketch.estimates();
+        assertThat(estimates).hasSize(10).containsKeys(1L, 2L, 3L);
+        estimates.forEach((item, estimate) -> {
+            assertThat(estimate.count()).isGreaterThanOrEqualTo(truth[item.intValue()]);
+            assertThat(estimate.count() - estimate.error()).isLessThanOrEqualTo(truth[item.intValue()]);
+        });
+    }
+
+    @Test
+    void removedItemsFreeTheirCounter() {
+        SpaceSaving sketch = new SpaceSaving(2);
+        sketch.offer(1L, 1);
+        sketch.offer(2L, 5);
+        sketch.remove(1L);
+        sketch.offer(3L, 1);
+
+        assertThat(sketch.estimates()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                2L, new SpaceSaving.Estimate(5, 0),
+                3L, new SpaceSaving.Estimate(1, 0)));
+    }
+}
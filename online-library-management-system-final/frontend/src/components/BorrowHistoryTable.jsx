@@ -48,7 +48,7 @@ export default function BorrowHistoryTable({ items=[], onReturn }) {
                 </span>
               </td>
               <td className="p-4">
-                {r.status === 'BORROWED' && (
+                {(r.status === 'BORROWED' || r.status === 'OVERDUE') && (
                   <button
                     onClick={() => handleReturn(r)}
                     className="px-4 py-2 bg-gradient-to-r from-blue-500 to-purple-500 text-white font-semibold rounded-xl shadow-lg hover:shadow-xl transform hover:scale-105 transition-all duration-300"
@@ -5,7 +5,7 @@ export default function Notifications({ history=[] }) {
 
   useEffect(() => {
     const now = new Date()
-    const list = history.filter(r => r.status === 'BORROWED').filter(r => {
+    const list = history.filter(r => r.status === 'BORROWED' || r.status === 'OVERDUE').filter(r => {
       const due = new Date(new Date(r.borrowDate).getTime() + 14*24*60*60*1000)
       return now > due
     })
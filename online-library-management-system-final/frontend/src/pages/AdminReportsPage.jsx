@@ -20,7 +20,7 @@ export default function AdminReportsPage() {
   const pieData = [
     { name: 'Available', value: data.totalAvailable },
     { name: 'Borrowed', value: data.totalBorrowed },
-    { name: 'Overdue', value: data.totalOverdue },
+    { name: 'Overdue', value: data.overdueBooks },
   ]
 
   return (
@@ -54,7 +54,7 @@ export default function AdminReportsPage() {
           <h3 className="text-lg font-semibold mb-3">Most Borrowed Books</h3>
           <div className="w-full h-80">
             <ResponsiveContainer>
-              <BarChart data={data.mostBorrowed} margin={{ top: 20, right: 20, left: 0, bottom: 20 }}>
+              <BarChart data={data.mostBorrowedBooks} margin={{ top: 20, right: 20, left: 0, bottom: 20 }}>
                 <CartesianGrid strokeDasharray="3 3" />
                 <XAxis dataKey="title" hide/>
                 <YAxis />
@@ -73,7 +73,7 @@ export default function AdminReportsPage() {
                 </tr>
               </thead>
               <tbody>
-                {data.mostBorrowed.map((m,i)=> (
+                {data.mostBorrowedBooks.map((m,i)=> (
                   <tr key={i} className="border-b last:border-b-0">
                     <td className="p-2">{m.title}</td>
                     <td className="p-2">{m.count}</td>
@@ -71,8 +71,8 @@ export default function UserDashboard() {
   }
 
   // Calculate statistics
-  const currentlyBorrowed = history.filter(item => item.status === 'BORROWED')
-  const overdueBooks = history.filter(item => item.overdue && item.status === 'BORROWED')
+  const currentlyBorrowed = history.filter(item => item.status === 'BORROWED' || item.status === 'OVERDUE')
+  const overdueBooks = history.filter(item => item.status === 'OVERDUE' || (item.overdue && item.status === 'BORROWED'))
   const totalFines = history.reduce((sum, item) => sum + (item.fineAmount || 0), 0)
   const unpaidFines = history.filter(item => item.fineAmount > 0 && !item.finePaid).reduce((sum, item) => sum + item.fineAmount, 0)
 